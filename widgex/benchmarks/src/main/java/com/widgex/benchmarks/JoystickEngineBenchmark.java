@@ -0,0 +1,55 @@
+package com.widgex.benchmarks;
+
+import com.widgex.engine.JoystickEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the whole per sample pipeline of Joystick.onTouchEvent (mapping, magnitude, angle, sector
+ * with hysteresis and clamping to the rim) through the engine it delegates to, replaying the
+ * trace one sample per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JoystickEngineBenchmark {
+  protected TouchTrace touchTrace;
+  protected JoystickEngine engine;
+  protected int index;
+
+  @Setup
+  public void setUp() {
+    touchTrace = TouchTrace.generate(TouchTrace.DEFAULT_SEED, TouchTrace.DEFAULT_DIMENSION, 100);
+    engine = new JoystickEngine(touchTrace.dimension);
+    engine.setSectorHysteresis(5);
+    index = 0;
+  }
+
+  @Benchmark
+  public void onSample(Blackhole blackhole) {
+    int i = index;
+    if (++index == touchTrace.size)
+      index = 0;
+
+    engine.onSample(touchTrace.actions[i], touchTrace.x[i], touchTrace.y[i],
+            touchTrace.eventTimes[i]);
+    blackhole.consume(engine.getMagnitude());
+    blackhole.consume(engine.getAngle());
+    blackhole.consume(engine.getDirection());
+  }
+}
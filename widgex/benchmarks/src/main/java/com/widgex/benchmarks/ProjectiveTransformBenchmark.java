@@ -0,0 +1,95 @@
+package com.widgex.benchmarks;
+
+import com.widgex.engine.JoystickEngine;
+import com.widgex.engine.ProjectiveTransform;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the mapping between the joystick pixel coordinates and [-1, 1], with the matrices calibrated
+ * by the joystick. {@code TransformationMatrix} wraps the native android Matrix and cannot run
+ * on a JVM, ProjectiveTransform is the pure java implementation the joystick maps its samples
+ * with.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProjectiveTransformBenchmark {
+  // the number of points of the trace mapped by one bulk invocation
+  protected static final int BULK_SIZE = 1024;
+
+  protected ProjectiveTransform transformationMatrix;
+  protected ProjectiveTransform detransformationMatrix;
+  protected float[] points;
+  protected float[] mappedPoints;
+  protected float[] output;
+  protected int index;
+
+  @Setup
+  public void setUp() {
+    TouchTrace touchTrace = TouchTrace.generate(TouchTrace.DEFAULT_SEED,
+            TouchTrace.DEFAULT_DIMENSION, 100);
+    JoystickEngine engine = new JoystickEngine(touchTrace.dimension);
+    transformationMatrix = new ProjectiveTransform();
+    engine.getTransformationMatrix(transformationMatrix);
+    detransformationMatrix = new ProjectiveTransform();
+    engine.getDetransformationMatrix(detransformationMatrix);
+    points = touchTrace.interleavedPoints();
+    mappedPoints = touchTrace.mappedPoints();
+    output = new float[2 * BULK_SIZE];
+    index = 0;
+  }
+
+  protected int nextIndex() {
+    index += 2;
+    if (index == points.length)
+      index = 0;
+    return index;
+  }
+
+  @Benchmark
+  public float[] mapPoint() {
+    int i = nextIndex();
+    transformationMatrix.mapPoint(points[i], points[i + 1], output, 0);
+    return output;
+  }
+
+  @Benchmark
+  public float[] mapVector() {
+    int i = nextIndex();
+    transformationMatrix.mapVector(points[i], points[i + 1], output, 0);
+    return output;
+  }
+
+  /**
+   * the clamping of a knob beyond the rim maps its border point back to pixels.
+   */
+  @Benchmark
+  public float[] unmapPoint() {
+    int i = nextIndex();
+    detransformationMatrix.mapPoint(mappedPoints[i], mappedPoints[i + 1], output, 0);
+    return output;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BULK_SIZE)
+  public float[] mapPoints() {
+    transformationMatrix.mapPoints(output, 0, points, 0, BULK_SIZE);
+    return output;
+  }
+}
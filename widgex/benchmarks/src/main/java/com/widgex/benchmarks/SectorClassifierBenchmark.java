@@ -0,0 +1,71 @@
+package com.widgex.benchmarks;
+
+import com.widgex.engine.SectorClassifier;
+import com.widgex.engine.VectorMath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the direction of a mapped touch point, for the default 8 sectors and for larger sector
+ * configurations whose cost grows with log(numberOfSectors).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SectorClassifierBenchmark {
+  @Param({"4", "8", "16", "64"})
+  public int numberOfSectors;
+
+  protected SectorClassifier sectorClassifier;
+  protected float[] points;
+  protected float[] angles;
+  protected int index;
+
+  @Setup
+  public void setUp() {
+    sectorClassifier = new SectorClassifier(numberOfSectors);
+    points = TouchTrace.generate(TouchTrace.DEFAULT_SEED, TouchTrace.DEFAULT_DIMENSION, 100)
+            .mappedPoints();
+    angles = new float[points.length / 2];
+    for (int i = 0; i < angles.length; ++i)
+      angles[i] = (float) VectorMath.angle(points[2 * i], points[2 * i + 1]);
+    index = 0;
+  }
+
+  protected int nextIndex() {
+    index += 2;
+    if (index == points.length)
+      index = 0;
+    return index;
+  }
+
+  @Benchmark
+  public int classify() {
+    int i = nextIndex();
+    return sectorClassifier.classify(points[i], points[i + 1]);
+  }
+
+  /**
+   * the hysteresis check done when the classified sector differs from the current one.
+   */
+  @Benchmark
+  public boolean isWithinSector() {
+    int i = nextIndex();
+    return sectorClassifier.isWithinSector(0, angles[i / 2], 0);
+  }
+}
@@ -0,0 +1,132 @@
+package com.widgex.benchmarks;
+
+import com.widgex.engine.JoystickEngine;
+
+import java.util.Random;
+
+/**
+ * a synthetic but realistic touch stream over a joystick, stored as parallel primitive arrays
+ * so replaying it in a benchmark allocates nothing.<br>
+ * every gesture is a press near the center followed by moves sampled at the touch rate of
+ * current devices, sweeping in an arc that drifts in and out of the rim with finger jitter, and
+ * a release. the stream depends only on the seed so runs are comparable.
+ */
+public class TouchTrace {
+  /**
+   * the default seed of the benchmarks.
+   */
+  public static final long DEFAULT_SEED = 42;
+
+  /**
+   * the default side length of the joystick in pixels.
+   */
+  public static final float DEFAULT_DIMENSION = 300;
+
+  /**
+   * the milliseconds between two moves, a 120 Hz touch sampling rate.
+   */
+  protected static final long SAMPLE_INTERVAL = 8;
+
+  // the number of moves of one gesture is in [MIN_MOVES, MIN_MOVES + MOVES_RANGE)
+  protected static final int MIN_MOVES = 20;
+  protected static final int MOVES_RANGE = 100;
+
+  // standard deviation of the finger jitter in pixels
+  protected static final float JITTER = 1.5f;
+
+  protected static final String ERROR_MSG_NUMBER_OF_GESTURES = "invalid numberOfGestures, " +
+          "numberOfGestures should be >= 1";
+
+  public final float dimension;
+  public final int size;
+  // the JoystickEngine.ACTION_* of every sample
+  public final int[] actions;
+  public final float[] x;
+  public final float[] y;
+  public final long[] eventTimes;
+
+  protected TouchTrace(float dimension, int size) {
+    this.dimension = dimension;
+    this.size = size;
+    actions = new int[size];
+    x = new float[size];
+    y = new float[size];
+    eventTimes = new long[size];
+  }
+
+  /**
+   * generates numberOfGestures gestures over a joystick of side length dimension.
+   */
+  public static TouchTrace generate(long seed, float dimension, int numberOfGestures) {
+    if (numberOfGestures < 1)
+      throw new IllegalArgumentException(ERROR_MSG_NUMBER_OF_GESTURES +
+              ", passed value = " + numberOfGestures);
+
+    // the lengths of the gestures are drawn first, to size the arrays
+    Random random = new Random(seed);
+    int[] numberOfMoves = new int[numberOfGestures];
+    int size = 0;
+    for (int i = 0; i < numberOfGestures; ++i) {
+      numberOfMoves[i] = MIN_MOVES + random.nextInt(MOVES_RANGE);
+      size += numberOfMoves[i] + 2;
+    }
+
+    TouchTrace touchTrace = new TouchTrace(dimension, size);
+    float radius = dimension / 2;
+    long eventTime = 0;
+    for (int i = 0, sample = 0; i < numberOfGestures; ++i) {
+      // the finger lands near the center, then sweeps an arc at a varying distance, up to 40%
+      // beyond the rim
+      double startAngle = random.nextDouble() * 2 * Math.PI;
+      double sweep = (random.nextDouble() - 0.5) * 2 * Math.PI;
+      double targetDistance = radius * (0.3 + 1.1 * random.nextDouble());
+      double distance = radius * 0.15 * random.nextDouble();
+
+      eventTime += 100 + random.nextInt(400);
+      touchTrace.set(sample++, JoystickEngine.ACTION_DOWN, radius, startAngle, distance,
+              eventTime, random);
+      for (int j = 1; j <= numberOfMoves[i]; ++j) {
+        double progress = (double) j / numberOfMoves[i];
+        distance += (targetDistance - distance) * 0.2;
+        eventTime += SAMPLE_INTERVAL;
+        touchTrace.set(sample++, JoystickEngine.ACTION_MOVE, radius,
+                startAngle + sweep * progress, distance, eventTime, random);
+      }
+      eventTime += SAMPLE_INTERVAL;
+      touchTrace.set(sample++, JoystickEngine.ACTION_UP, radius, startAngle + sweep, distance,
+              eventTime, random);
+    }
+    return touchTrace;
+  }
+
+  protected void set(int sample, int action, float radius, double angle, double distance,
+                     long eventTime, Random random) {
+    actions[sample] = action;
+    // pixel coordinates, y-axis downward
+    x[sample] = (float) (radius + distance * Math.cos(angle) + random.nextGaussian() * JITTER);
+    y[sample] = (float) (radius - distance * Math.sin(angle) + random.nextGaussian() * JITTER);
+    eventTimes[sample] = eventTime;
+  }
+
+  /**
+   * @return the samples mapped to [-1, 1] as x, y pairs, like the joystick maps them.
+   */
+  public float[] mappedPoints() {
+    JoystickEngine engine = new JoystickEngine(dimension);
+    float[] points = new float[2 * size];
+    engine.mapPoints(points, 0, interleavedPoints(), 0, size);
+    return points;
+  }
+
+  /**
+   * @return the samples in pixel coordinates as x, y pairs.
+   */
+  public float[] interleavedPoints() {
+    float[] points = new float[2 * size];
+    for (int i = 0; i < size; ++i) {
+      points[2 * i] = x[i];
+      points[2 * i + 1] = y[i];
+    }
+    return points;
+  }
+}
@@ -0,0 +1,63 @@
+package com.widgex.benchmarks;
+
+import com.widgex.engine.VectorMath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the angle of a mapped touch point, {@code Vector2D.angle()} is a call to
+ * {@link VectorMath#angle(float, float)} on a PointF that only exists on android.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorMathBenchmark {
+  protected float[] points;
+  protected int index;
+
+  @Setup
+  public void setUp() {
+    points = TouchTrace.generate(TouchTrace.DEFAULT_SEED, TouchTrace.DEFAULT_DIMENSION, 100)
+            .mappedPoints();
+    index = 0;
+  }
+
+  protected int nextIndex() {
+    index += 2;
+    if (index == points.length)
+      index = 0;
+    return index;
+  }
+
+  @Benchmark
+  public double angle() {
+    int i = nextIndex();
+    return VectorMath.angle(points[i], points[i + 1]);
+  }
+
+  @Benchmark
+  public float fastAngle() {
+    int i = nextIndex();
+    return VectorMath.fastAngle(points[i], points[i + 1]);
+  }
+
+  @Benchmark
+  public int octant() {
+    int i = nextIndex();
+    return VectorMath.octant(points[i], points[i + 1]);
+  }
+}
@@ -0,0 +1,47 @@
+package com.widgex.benchmarks;
+
+import com.widgex.engine.JoystickEngine;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class TouchTraceTest {
+  @Test
+  public void testTraceIsDeterministic() throws Exception {
+    TouchTrace first = TouchTrace.generate(7, 300, 10);
+    TouchTrace second = TouchTrace.generate(7, 300, 10);
+    assertEquals(first.size, second.size);
+    assertTrue(Arrays.equals(first.x, second.x));
+    assertTrue(Arrays.equals(first.y, second.y));
+    assertTrue(Arrays.equals(first.eventTimes, second.eventTimes));
+  }
+
+  @Test
+  public void testGesturesAreWellFormed() throws Exception {
+    TouchTrace touchTrace = TouchTrace.generate(TouchTrace.DEFAULT_SEED, 300, 50);
+    JoystickEngine engine = new JoystickEngine(touchTrace.dimension);
+    int numberOfGestures = 0;
+    int samplesBeyondRim = 0;
+    for (int i = 0; i < touchTrace.size; ++i) {
+      if (i > 0)
+        assertTrue(touchTrace.eventTimes[i] > touchTrace.eventTimes[i - 1]);
+
+      int action = touchTrace.actions[i];
+      assertEquals(action == JoystickEngine.ACTION_DOWN, !engine.isActive());
+      if (action == JoystickEngine.ACTION_DOWN)
+        ++numberOfGestures;
+      assertTrue(engine.onSample(action, touchTrace.x[i], touchTrace.y[i],
+              touchTrace.eventTimes[i]));
+      if (engine.getMagnitude() > 1)
+        ++samplesBeyondRim;
+    }
+    assertEquals(50, numberOfGestures);
+    assertTrue(!engine.isActive());
+    // the clamping path is exercised
+    assertTrue(samplesBeyondRim > 0);
+  }
+}
@@ -0,0 +1,440 @@
+package com.widgex.engine;
+
+/**
+ * the input math and the state machine of a joystick without any view or graphics dependency,
+ * it runs on any JVM and processes primitive (action, x, y, eventTime) touch samples, e.g. touch
+ * streams recorded on a device and replayed on a server.<br>
+ * the joystick is a square of side dimension, touch points are given in its pixel coordinates
+ * (origin at the upper left corner, y-axis downward) and mapped to [-1, 1] on both axes with the
+ * y-axis upward. the knob is clamped to the joystick border, its direction is the sector it is
+ * in, or {@link #DIRECTION_CENTER} inside the inner circle.<br>
+ * an engine is not thread safe, all the samples of one joystick must be processed by one
+ * thread at a time, and processing a sample never allocates.
+ */
+public class JoystickEngine {
+  /**
+   * a finger touched the joystick, the value of {@code MotionEvent.ACTION_DOWN}.
+   */
+  public static final int ACTION_DOWN = 0;
+  /**
+   * the finger was lifted, the value of {@code MotionEvent.ACTION_UP}.
+   */
+  public static final int ACTION_UP = 1;
+  /**
+   * the finger moved, the value of {@code MotionEvent.ACTION_MOVE}.
+   */
+  public static final int ACTION_MOVE = 2;
+  /**
+   * the gesture was aborted, the value of {@code MotionEvent.ACTION_CANCEL}.
+   */
+  public static final int ACTION_CANCEL = 3;
+
+  /**
+   * central region index.
+   */
+  public static final int DIRECTION_CENTER = -1;
+
+  /**
+   * default number of sectors/directions.
+   */
+  public static final int NUMBER_OF_SECTORS = 8;
+
+  /**
+   * the default ratio between the radius of the inner circle, where the direction is
+   * {@link #DIRECTION_CENTER}, and the radius of the joystick.
+   */
+  public static final float INNER_CIRCLE_RADIUS_TO_JOYSTICK_RADIUS_DEFAULT_RATIO = 0.3f;
+
+  /**
+   * the default number of degrees the knob has to pass the boundary of its current sector by
+   * before the direction changes.
+   */
+  public static final float SECTOR_DEFAULT_HYSTERESIS = 0.0f;
+
+  /**
+   * maximum angle.
+   */
+  public static final float MAX_ANGLE = 360.0f;
+
+  /**
+   * number of joystick corners used to calibrate the mapping.
+   */
+  protected static final int NUMBER_OF_CORNERS = 4;
+
+  /**
+   * the coordinate space of the joystick is mapped to [-1, 1] on both x-axis and y-axis to ease
+   * the calculations, but for the y-axis the coordinate space is inverted because graphical
+   * components have the positive direction of the y-axis downward.<br>
+   * this is the mapped minimum x coordinate.
+   */
+  protected static final float MAPPED_MIN_X_COORD = -1;
+  /**
+   * the mapped minimum y coordinate.
+   */
+  protected static final float MAPPED_MIN_Y_COORD = -1;
+  /**
+   * the mapped maximum x coordinate.
+   */
+  protected static final float MAPPED_MAX_X_COORD = 1;
+  /**
+   * the mapped maximum y coordinate.
+   */
+  protected static final float MAPPED_MAX_Y_COORD = 1;
+
+  protected static final String ERROR_MSG_NULL_ARGUMENT = "passed parameter is null";
+  protected static final String ERROR_MSG_DIMENSION_VALUE = "invalid dimension, dimension value " +
+          "should be > 0.0";
+  protected static final String ERROR_MSG_ACTION_VALUE = "invalid action, action value should " +
+          "be one of the ACTION_* constants";
+  protected static final String ERROR_MSG_INNER_CIRCLE_RADIUS_RATIO = "invalid innerCircleRadiusToJoystickRadiusRatio, " +
+          "this ratio should be >= 0.0 and <= 1.0";
+  protected static final String ERROR_MSG_SECTOR_HYSTERESIS_VALUE = "invalid sectorHysteresis, " +
+          "sectorHysteresis value should be >= 0.0 and < half of the smallest sector angle";
+
+  // configuration
+  protected float dimension;
+  protected float joystickRadius;
+  protected float joystickCenterX;
+  protected float joystickCenterY;
+  protected float innerCircleRadiusToJoystickRadiusRatio;
+  protected SectorClassifier sectorClassifier;
+  protected float sectorHysteresis;
+  protected ProjectiveTransform transformationMatrix;
+  protected ProjectiveTransform detransformationMatrix;
+  protected float[] matrixCalibrationValuesSrc;
+  protected float[] matrixCalibrationValuesDst;
+  protected float[] transformationOutput;
+
+  // knob state
+  protected boolean isActive;
+  protected float touchX;
+  protected float touchY;
+  protected float mappedX;
+  protected float mappedY;
+  protected float magnitude;
+  protected float angle;
+  protected int direction;
+  protected long eventTime;
+
+  public JoystickEngine() {
+    innerCircleRadiusToJoystickRadiusRatio = INNER_CIRCLE_RADIUS_TO_JOYSTICK_RADIUS_DEFAULT_RATIO;
+    sectorClassifier = new SectorClassifier(NUMBER_OF_SECTORS);
+    sectorHysteresis = SECTOR_DEFAULT_HYSTERESIS;
+    transformationMatrix = new ProjectiveTransform();
+    detransformationMatrix = new ProjectiveTransform();
+    matrixCalibrationValuesSrc = new float[NUMBER_OF_CORNERS * 2];
+    matrixCalibrationValuesDst = new float[NUMBER_OF_CORNERS * 2];
+    transformationOutput = new float[2];
+    isActive = false;
+    direction = DIRECTION_CENTER;
+  }
+
+  public JoystickEngine(float dimension) {
+    this();
+    setDimension(dimension);
+  }
+
+  /**
+   * processes one touch sample, (x, y) is the touch point in joystick pixel coordinates.<br>
+   * ACTION_DOWN presses the knob, ACTION_MOVE moves it while it is pressed, ACTION_UP and
+   * ACTION_CANCEL release it back to the center.
+   *
+   * @return true if the knob state changed, moves and releases are ignored while the knob is
+   * not pressed.
+   */
+  public boolean onSample(int action, float x, float y, long eventTime) {
+    switch (action) {
+      case ACTION_DOWN: {
+        press(x, y, eventTime);
+        return true;
+      }
+      case ACTION_MOVE: {
+        if (!isActive)
+          return false;
+        move(x, y, eventTime);
+        return true;
+      }
+      case ACTION_UP:
+      case ACTION_CANCEL: {
+        if (!isActive)
+          return false;
+        release(eventTime);
+        return true;
+      }
+      default:
+        throw new IllegalArgumentException(ERROR_MSG_ACTION_VALUE + ", passed value = " + action);
+    }
+  }
+
+  /**
+   * presses the knob at the passed touch point.
+   */
+  public void press(float x, float y, long eventTime) {
+    updateKnob(x, y);
+    this.eventTime = eventTime;
+    isActive = true;
+  }
+
+  /**
+   * moves the knob to the passed touch point.
+   */
+  public void move(float x, float y, long eventTime) {
+    updateKnob(x, y);
+    this.eventTime = eventTime;
+  }
+
+  /**
+   * releases the knob and returns it to the center.
+   */
+  public void release(long eventTime) {
+    resetKnob();
+    this.eventTime = eventTime;
+    isActive = false;
+  }
+
+  protected void resetKnob() {
+    touchX = joystickCenterX;
+    touchY = joystickCenterY;
+    mappedX = 0;
+    mappedY = 0;
+    magnitude = 0.0f;
+    angle = 0.0f;
+    direction = DIRECTION_CENTER;
+  }
+
+  /**
+   * updates the knob state (coordinates, magnitude, angle and direction) from the passed touch
+   * point, clamping the knob to the joystick border.
+   */
+  protected void updateKnob(float x, float y) {
+    touchX = x;
+    touchY = y;
+    transformationMatrix.mapPoint(x, y, transformationOutput, 0);
+    mappedX = transformationOutput[0];
+    mappedY = transformationOutput[1];
+    magnitude = (float) Math.sqrt(mappedX * mappedX + mappedY * mappedY);
+    angle = (float) VectorMath.angle(mappedX, mappedY);
+    if (magnitude > innerCircleRadiusToJoystickRadiusRatio) {
+      int sector = sectorClassifier.classify(mappedX, mappedY);
+      if (sector != direction && direction != DIRECTION_CENTER &&
+              sectorClassifier.isWithinSector(direction, angle, sectorHysteresis))
+        sector = direction;
+      direction = sector;
+    } else direction = DIRECTION_CENTER;
+
+    if (magnitude > 1.0) {
+      // the point on the border in the same direction, without going through the angle
+      mappedX /= magnitude;
+      mappedY /= magnitude;
+      detransformationMatrix.mapPoint(mappedX, mappedY, transformationOutput, 0);
+      touchX = transformationOutput[0];
+      touchY = transformationOutput[1];
+    }
+  }
+
+  /**
+   * calibrates the mapping between the joystick pixel coordinates and [-1, 1] for the passed
+   * side length and returns the knob to the center, nothing is done if the dimension did not
+   * change.
+   */
+  public void setDimension(float dimension) {
+    if (!(dimension > 0.0f))
+      throw new IllegalArgumentException(ERROR_MSG_DIMENSION_VALUE +
+              ", passed value = " + dimension);
+    if (dimension == this.dimension)
+      return;
+
+    this.dimension = dimension;
+    joystickRadius = dimension / 2;
+    joystickCenterX = dimension / 2;
+    joystickCenterY = dimension / 2;
+
+    // upper left corner
+    setCalibrationValues(0, 0, 0, MAPPED_MIN_X_COORD, MAPPED_MAX_Y_COORD);
+
+    // bottom left corner
+    setCalibrationValues(1, 0, dimension, MAPPED_MIN_X_COORD, MAPPED_MIN_Y_COORD);
+
+    // upper right corner
+    setCalibrationValues(2, dimension, 0, MAPPED_MAX_X_COORD, MAPPED_MAX_Y_COORD);
+
+    // bottom right corner
+    setCalibrationValues(3, dimension, dimension, MAPPED_MAX_X_COORD, MAPPED_MIN_Y_COORD);
+
+    boolean transformationMatrixSet = transformationMatrix.setPolyToPoly(
+            matrixCalibrationValuesSrc, 0, matrixCalibrationValuesDst, 0, NUMBER_OF_CORNERS);
+
+    boolean detransformationMatrixSet = detransformationMatrix.setPolyToPoly(
+            matrixCalibrationValuesDst, 0, matrixCalibrationValuesSrc, 0, NUMBER_OF_CORNERS);
+
+    // safety check
+    if (!transformationMatrixSet || !detransformationMatrixSet)
+      throw new RuntimeException("error in calibrating the transformation matrices");
+
+    resetKnob();
+  }
+
+  protected void setCalibrationValues(int corner, float x, float y, float mappedX, float mappedY) {
+    matrixCalibrationValuesSrc[2 * corner] = x;
+    matrixCalibrationValuesSrc[2 * corner + 1] = y;
+    matrixCalibrationValuesDst[2 * corner] = mappedX;
+    matrixCalibrationValuesDst[2 * corner + 1] = mappedY;
+  }
+
+  public float getDimension() {
+    return dimension;
+  }
+
+  public float getJoystickRadius() {
+    return joystickRadius;
+  }
+
+  public float getJoystickCenterX() {
+    return joystickCenterX;
+  }
+
+  public float getJoystickCenterY() {
+    return joystickCenterY;
+  }
+
+  /**
+   * maps pointCount x, y pairs from the joystick pixel coordinates to [-1, 1], src and dst may
+   * be the same array.
+   */
+  public void mapPoints(float[] dst, int dstIndex, float[] src, int srcIndex, int pointCount) {
+    transformationMatrix.mapPoints(dst, dstIndex, src, srcIndex, pointCount);
+  }
+
+  /**
+   * maps pointCount x, y pairs from [-1, 1] back to the joystick pixel coordinates, src and dst
+   * may be the same array.
+   */
+  public void unmapPoints(float[] dst, int dstIndex, float[] src, int srcIndex, int pointCount) {
+    detransformationMatrix.mapPoints(dst, dstIndex, src, srcIndex, pointCount);
+  }
+
+  /**
+   * copies the mapping from the joystick pixel coordinates to [-1, 1] into the passed transform.
+   */
+  public void getTransformationMatrix(ProjectiveTransform transformationMatrix) {
+    transformationMatrix.set(this.transformationMatrix);
+  }
+
+  /**
+   * copies the mapping from [-1, 1] to the joystick pixel coordinates into the passed transform.
+   */
+  public void getDetransformationMatrix(ProjectiveTransform detransformationMatrix) {
+    detransformationMatrix.set(this.detransformationMatrix);
+  }
+
+  public float getInnerCircleRadiusToJoystickRadiusRatio() {
+    return innerCircleRadiusToJoystickRadiusRatio;
+  }
+
+  public void setInnerCircleRadiusToJoystickRadiusRatio(float innerCircleRadiusToJoystickRadiusRatio) {
+    if (innerCircleRadiusToJoystickRadiusRatio < 0.0 ||
+            innerCircleRadiusToJoystickRadiusRatio > 1.0)
+      throw new IllegalArgumentException(ERROR_MSG_INNER_CIRCLE_RADIUS_RATIO +
+              ", passed value = " + innerCircleRadiusToJoystickRadiusRatio);
+
+    this.innerCircleRadiusToJoystickRadiusRatio = innerCircleRadiusToJoystickRadiusRatio;
+  }
+
+  public SectorClassifier getSectorClassifier() {
+    return sectorClassifier;
+  }
+
+  /**
+   * switches to the passed sector configuration, the direction is reset if it does not exist in
+   * the new configuration and the sectorHysteresis is reset if it is not smaller than half of
+   * the smallest new sector angle.
+   */
+  public void setSectorClassifier(SectorClassifier sectorClassifier) {
+    if (sectorClassifier == null)
+      throw new NullPointerException(ERROR_MSG_NULL_ARGUMENT);
+
+    this.sectorClassifier = sectorClassifier;
+    if (direction >= sectorClassifier.getNumberOfSectors())
+      direction = DIRECTION_CENTER;
+    if (sectorHysteresis >= sectorClassifier.getMinSectorAngle() / 2)
+      sectorHysteresis = SECTOR_DEFAULT_HYSTERESIS;
+  }
+
+  public float getSectorHysteresis() {
+    return sectorHysteresis;
+  }
+
+  /**
+   * @param sectorHysteresis the number of degrees the knob has to pass the boundary of its
+   *                         current sector by before the direction changes, this keeps the
+   *                         direction stable when the knob rests on a sector boundary.
+   */
+  public void setSectorHysteresis(float sectorHysteresis) {
+    if (sectorHysteresis < 0.0 || sectorHysteresis >= sectorClassifier.getMinSectorAngle() / 2)
+      throw new IllegalArgumentException(ERROR_MSG_SECTOR_HYSTERESIS_VALUE +
+              ", passed value = " + sectorHysteresis);
+
+    this.sectorHysteresis = sectorHysteresis;
+  }
+
+  public boolean isActive() {
+    return isActive;
+  }
+
+  /**
+   * @return the x coordinate of the knob in joystick pixel coordinates, clamped to the border.
+   */
+  public float getTouchX() {
+    return touchX;
+  }
+
+  /**
+   * @return the y coordinate of the knob in joystick pixel coordinates, clamped to the border.
+   */
+  public float getTouchY() {
+    return touchY;
+  }
+
+  /**
+   * @return the x coordinate of the knob in [-1, 1].
+   */
+  public float getMappedX() {
+    return mappedX;
+  }
+
+  /**
+   * @return the y coordinate of the knob in [-1, 1], positive upward.
+   */
+  public float getMappedY() {
+    return mappedY;
+  }
+
+  /**
+   * @return the distance between the touch point and the joystick center, 0 at the center and 1
+   * on the joystick border, it exceeds 1 when the touch point is outside the joystick.
+   */
+  public float getMagnitude() {
+    return magnitude;
+  }
+
+  /**
+   * @return the angle of the knob in degrees, in [0, 360).
+   */
+  public float getAngle() {
+    return angle;
+  }
+
+  /**
+   * @return the sector of the knob, or {@link #DIRECTION_CENTER}.
+   */
+  public int getDirection() {
+    return direction;
+  }
+
+  /**
+   * @return the time of the last processed sample.
+   */
+  public long getEventTime() {
+    return eventTime;
+  }
+}
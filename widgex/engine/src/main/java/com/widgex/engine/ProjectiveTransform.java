@@ -0,0 +1,299 @@
+package com.widgex.engine;
+
+/**
+ * pure java 3x3 projective transformation with the semantics of {@code android.graphics.Matrix}
+ * for setPolyToPoly, mapPoints and mapVectors, it has no native state so the mapping methods
+ * are plain arithmetic that the JIT can inline, and it runs on any JVM.<br>
+ * the values are stored in the order of the Matrix MSCALE_X ... MPERSP_2 indices, and the
+ * mapping takes a cheaper path while the transformation is affine.
+ */
+public class ProjectiveTransform {
+  /**
+   * number of values of the 3x3 matrix.
+   */
+  public static final int NUMBER_OF_VALUES = 9;
+
+  /**
+   * maximum number of points accepted by setPolyToPoly.
+   */
+  public static final int MAX_POLY_POINTS = 4;
+
+  protected static final String ERROR_MSG_POLY_POINT_COUNT = "invalid pointCount, pointCount " +
+          "should be >= 0 and <= " + MAX_POLY_POINTS;
+
+  // pivots smaller than this are treated as zero when solving the calibration system
+  protected static final double SINGULARITY_THRESHOLD = 1e-12;
+
+  // width of one row of the calibration system, 8 unknowns and the right hand side
+  protected static final int SYSTEM_ROW_LENGTH = 9;
+
+  protected float scaleX;
+  protected float skewX;
+  protected float translateX;
+  protected float skewY;
+  protected float scaleY;
+  protected float translateY;
+  protected float perspective0;
+  protected float perspective1;
+  protected float perspective2;
+  protected boolean isAffine;
+  protected double system[];
+
+  public ProjectiveTransform() {
+    system = new double[(2 * MAX_POLY_POINTS) * SYSTEM_ROW_LENGTH];
+    reset();
+  }
+
+  public ProjectiveTransform(ProjectiveTransform src) {
+    this();
+    set(src);
+  }
+
+  public void reset() {
+    setValues(1, 0, 0, 0, 1, 0, 0, 0, 1);
+  }
+
+  public void set(ProjectiveTransform src) {
+    setValues(src.scaleX, src.skewX, src.translateX,
+            src.skewY, src.scaleY, src.translateY,
+            src.perspective0, src.perspective1, src.perspective2);
+  }
+
+  public void setValues(float[] values) {
+    setValues(values[0], values[1], values[2],
+            values[3], values[4], values[5],
+            values[6], values[7], values[8]);
+  }
+
+  public void getValues(float[] values) {
+    values[0] = scaleX;
+    values[1] = skewX;
+    values[2] = translateX;
+    values[3] = skewY;
+    values[4] = scaleY;
+    values[5] = translateY;
+    values[6] = perspective0;
+    values[7] = perspective1;
+    values[8] = perspective2;
+  }
+
+  public boolean isIdentity() {
+    return scaleX == 1 && skewX == 0 && translateX == 0 &&
+            skewY == 0 && scaleY == 1 && translateY == 0 && isAffine;
+  }
+
+  public boolean isAffine() {
+    return isAffine;
+  }
+
+  protected void setValues(float scaleX, float skewX, float translateX,
+                           float skewY, float scaleY, float translateY,
+                           float perspective0, float perspective1, float perspective2) {
+    this.scaleX = scaleX;
+    this.skewX = skewX;
+    this.translateX = translateX;
+    this.skewY = skewY;
+    this.scaleY = scaleY;
+    this.translateY = translateY;
+    this.perspective0 = perspective0;
+    this.perspective1 = perspective1;
+    this.perspective2 = perspective2;
+    this.isAffine = perspective0 == 0 && perspective1 == 0 && perspective2 == 1;
+  }
+
+  /**
+   * maps the point (x, y) and writes the result to dst[dstIndex] and dst[dstIndex + 1].
+   */
+  public void mapPoint(float x, float y, float[] dst, int dstIndex) {
+    float mappedX = scaleX * x + skewX * y + translateX;
+    float mappedY = skewY * x + scaleY * y + translateY;
+    if (!isAffine) {
+      float w = perspective0 * x + perspective1 * y + perspective2;
+      if (w != 0)
+        w = 1 / w;
+      mappedX *= w;
+      mappedY *= w;
+    }
+    dst[dstIndex] = mappedX;
+    dst[dstIndex + 1] = mappedY;
+  }
+
+  /**
+   * maps the vector (x, y), ignoring the translation, and writes the result to dst[dstIndex]
+   * and dst[dstIndex + 1]. if the transformation has perspective the vector is mapped as a point
+   * and the mapped origin is subtracted from it, like {@code android.graphics.Matrix#mapVectors}.
+   */
+  public void mapVector(float x, float y, float[] dst, int dstIndex) {
+    if (isAffine) {
+      dst[dstIndex] = scaleX * x + skewX * y;
+      dst[dstIndex + 1] = skewY * x + scaleY * y;
+    } else {
+      mapPoint(x, y, dst, dstIndex);
+      float w = perspective2 != 0 ? 1 / perspective2 : 0;
+      dst[dstIndex] -= translateX * w;
+      dst[dstIndex + 1] -= translateY * w;
+    }
+  }
+
+  /**
+   * maps pointCount points stored as x, y pairs from src starting at srcIndex and writes them to
+   * dst starting at dstIndex, src and dst may be the same array.
+   */
+  public void mapPoints(float[] dst, int dstIndex, float[] src, int srcIndex, int pointCount) {
+    for (int i = 0; i < pointCount; ++i, srcIndex += 2, dstIndex += 2)
+      mapPoint(src[srcIndex], src[srcIndex + 1], dst, dstIndex);
+  }
+
+  /**
+   * maps pointCount vectors stored as x, y pairs from src starting at srcIndex and writes them to
+   * dst starting at dstIndex, src and dst may be the same array.
+   */
+  public void mapVectors(float[] dst, int dstIndex, float[] src, int srcIndex, int vectorCount) {
+    for (int i = 0; i < vectorCount; ++i, srcIndex += 2, dstIndex += 2)
+      mapVector(src[srcIndex], src[srcIndex + 1], dst, dstIndex);
+  }
+
+  /**
+   * sets the transformation that maps the src points to the dst points, like
+   * {@code android.graphics.Matrix#setPolyToPoly}: one point gives a translation, two points a
+   * rotation and uniform scale, three points an affine transformation and four points a
+   * perspective transformation. the points are stored as x, y pairs.
+   *
+   * @return false if the points are degenerate, the transformation is left unchanged.
+   */
+  public boolean setPolyToPoly(float[] src, int srcIndex, float[] dst, int dstIndex,
+                               int pointCount) {
+    if (pointCount < 0 || pointCount > MAX_POLY_POINTS)
+      throw new IllegalArgumentException(ERROR_MSG_POLY_POINT_COUNT +
+              ", passed value = " + pointCount);
+
+    switch (pointCount) {
+      case 0: {
+        reset();
+        return true;
+      }
+      case 1: {
+        setValues(1, 0, dst[dstIndex] - src[srcIndex],
+                0, 1, dst[dstIndex + 1] - src[srcIndex + 1],
+                0, 0, 1);
+        return true;
+      }
+      case 2: {
+        double srcDeltaX = src[srcIndex + 2] - src[srcIndex];
+        double srcDeltaY = src[srcIndex + 3] - src[srcIndex + 1];
+        double dstDeltaX = dst[dstIndex + 2] - dst[dstIndex];
+        double dstDeltaY = dst[dstIndex + 3] - dst[dstIndex + 1];
+        double denominator = srcDeltaX * srcDeltaX + srcDeltaY * srcDeltaY;
+        if (denominator < SINGULARITY_THRESHOLD)
+          return false;
+
+        // dst delta divided by src delta as complex numbers, cosine and sine times the scale
+        double cosine = (dstDeltaX * srcDeltaX + dstDeltaY * srcDeltaY) / denominator;
+        double sine = (dstDeltaY * srcDeltaX - dstDeltaX * srcDeltaY) / denominator;
+        setValues((float) cosine, (float) -sine,
+                (float) (dst[dstIndex] - (cosine * src[srcIndex] - sine * src[srcIndex + 1])),
+                (float) sine, (float) cosine,
+                (float) (dst[dstIndex + 1] - (sine * src[srcIndex] + cosine * src[srcIndex + 1])),
+                0, 0, 1);
+        return true;
+      }
+      case 3: {
+        // x' = a.x + b.y + c, y' = d.x + e.y + f
+        for (int i = 0; i < 3; ++i) {
+          double x = src[srcIndex + 2 * i];
+          double y = src[srcIndex + 2 * i + 1];
+          setSystemRow(2 * i, x, y, 1, 0, 0, 0, 0, 0, dst[dstIndex + 2 * i]);
+          setSystemRow(2 * i + 1, 0, 0, 0, x, y, 1, 0, 0, dst[dstIndex + 2 * i + 1]);
+        }
+
+        if (!solveSystem(6))
+          return false;
+
+        setValues((float) system[8], (float) system[SYSTEM_ROW_LENGTH + 8],
+                (float) system[2 * SYSTEM_ROW_LENGTH + 8],
+                (float) system[3 * SYSTEM_ROW_LENGTH + 8], (float) system[4 * SYSTEM_ROW_LENGTH + 8],
+                (float) system[5 * SYSTEM_ROW_LENGTH + 8],
+                0, 0, 1);
+        return true;
+      }
+      default: {
+        // x' = (a.x + b.y + c) / (g.x + h.y + 1), y' = (d.x + e.y + f) / (g.x + h.y + 1)
+        for (int i = 0; i < 4; ++i) {
+          double x = src[srcIndex + 2 * i];
+          double y = src[srcIndex + 2 * i + 1];
+          double mappedX = dst[dstIndex + 2 * i];
+          double mappedY = dst[dstIndex + 2 * i + 1];
+          setSystemRow(2 * i, x, y, 1, 0, 0, 0, -x * mappedX, -y * mappedX, mappedX);
+          setSystemRow(2 * i + 1, 0, 0, 0, x, y, 1, -x * mappedY, -y * mappedY, mappedY);
+        }
+
+        if (!solveSystem(8))
+          return false;
+
+        setValues((float) system[8], (float) system[SYSTEM_ROW_LENGTH + 8],
+                (float) system[2 * SYSTEM_ROW_LENGTH + 8],
+                (float) system[3 * SYSTEM_ROW_LENGTH + 8], (float) system[4 * SYSTEM_ROW_LENGTH + 8],
+                (float) system[5 * SYSTEM_ROW_LENGTH + 8],
+                (float) system[6 * SYSTEM_ROW_LENGTH + 8], (float) system[7 * SYSTEM_ROW_LENGTH + 8],
+                1);
+        return true;
+      }
+    }
+  }
+
+  protected void setSystemRow(int row, double a, double b, double c, double d, double e,
+                              double f, double g, double h, double rightHandSide) {
+    int offset = row * SYSTEM_ROW_LENGTH;
+    system[offset] = a;
+    system[offset + 1] = b;
+    system[offset + 2] = c;
+    system[offset + 3] = d;
+    system[offset + 4] = e;
+    system[offset + 5] = f;
+    system[offset + 6] = g;
+    system[offset + 7] = h;
+    system[offset + 8] = rightHandSide;
+  }
+
+  /**
+   * solves the first n rows and columns of the system in place using gauss-jordan elimination
+   * with partial pivoting, the solution of unknown i is left in the last column of row i.
+   *
+   * @return false if the system is singular.
+   */
+  protected boolean solveSystem(int n) {
+    for (int column = 0; column < n; ++column) {
+      int pivotRow = column;
+      for (int row = column + 1; row < n; ++row) {
+        if (Math.abs(system[row * SYSTEM_ROW_LENGTH + column]) >
+                Math.abs(system[pivotRow * SYSTEM_ROW_LENGTH + column]))
+          pivotRow = row;
+      }
+
+      double pivot = system[pivotRow * SYSTEM_ROW_LENGTH + column];
+      if (Math.abs(pivot) < SINGULARITY_THRESHOLD)
+        return false;
+
+      if (pivotRow != column) {
+        for (int k = 0; k < SYSTEM_ROW_LENGTH; ++k) {
+          double temp = system[column * SYSTEM_ROW_LENGTH + k];
+          system[column * SYSTEM_ROW_LENGTH + k] = system[pivotRow * SYSTEM_ROW_LENGTH + k];
+          system[pivotRow * SYSTEM_ROW_LENGTH + k] = temp;
+        }
+      }
+
+      for (int k = column; k < SYSTEM_ROW_LENGTH; ++k)
+        system[column * SYSTEM_ROW_LENGTH + k] /= pivot;
+
+      for (int row = 0; row < n; ++row) {
+        double factor = system[row * SYSTEM_ROW_LENGTH + column];
+        if (row == column || factor == 0)
+          continue;
+
+        for (int k = column; k < SYSTEM_ROW_LENGTH; ++k)
+          system[row * SYSTEM_ROW_LENGTH + k] -= factor * system[column * SYSTEM_ROW_LENGTH + k];
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,180 @@
+package com.widgex.engine;
+
+/**
+ * classifies vectors into a number of angular sectors without trigonometry.<br>
+ * sector 0 is centered on the positive x-axis and the next sectors follow counter-clockwise,
+ * every sector covers [start, end) so a vector on a boundary belongs to the counter-clockwise
+ * sector. the sectors are equal by default or proportional to the passed weights.<br>
+ * the boundaries are computed once, and classifying a vector computes a monotonic pseudo angle
+ * with one division followed by a binary search over the boundaries, so the per vector cost
+ * grows with log(numberOfSectors) only.
+ */
+public class SectorClassifier {
+  /**
+   * maximum angle.
+   */
+  public static final float MAX_ANGLE = 360.0f;
+
+  protected static final String ERROR_MSG_NUMBER_OF_SECTORS = "invalid numberOfSectors, " +
+          "numberOfSectors should be >= 1";
+  protected static final String ERROR_MSG_SECTOR_WEIGHT = "invalid sector weight, every sector " +
+          "weight should be > 0.0";
+  protected static final String ERROR_MSG_NULL_ARGUMENT = "passed parameter is null";
+
+  protected final int numberOfSectors;
+  // unit vector of the clockwise boundary (the start) of every sector
+  protected final float boundaryX[];
+  protected final float boundaryY[];
+  // pseudo angle of the start of every sector, only increasing from sector 1 on, the start of
+  // sector 0 is always the greatest because sector 0 wraps around the positive x-axis
+  protected final float boundaryPseudoAngle[];
+  protected final float sectorStartAngle[];
+  protected final float sectorAngle[];
+  protected final float minSectorAngle;
+
+  public SectorClassifier(int numberOfSectors) {
+    this(equalWeights(numberOfSectors));
+  }
+
+  /**
+   * @param sectorWeights the relative angular size of every sector, starting from sector 0.
+   */
+  public SectorClassifier(float[] sectorWeights) {
+    if (sectorWeights == null)
+      throw new NullPointerException(ERROR_MSG_NULL_ARGUMENT);
+    if (sectorWeights.length < 1)
+      throw new IllegalArgumentException(ERROR_MSG_NUMBER_OF_SECTORS +
+              ", passed value = " + sectorWeights.length);
+
+    double totalWeight = 0;
+    for (float sectorWeight : sectorWeights) {
+      if (!(sectorWeight > 0.0f) || Float.isInfinite(sectorWeight))
+        throw new IllegalArgumentException(ERROR_MSG_SECTOR_WEIGHT +
+                ", passed value = " + sectorWeight);
+      totalWeight += sectorWeight;
+    }
+
+    numberOfSectors = sectorWeights.length;
+    boundaryX = new float[numberOfSectors];
+    boundaryY = new float[numberOfSectors];
+    boundaryPseudoAngle = new float[numberOfSectors];
+    sectorStartAngle = new float[numberOfSectors];
+    sectorAngle = new float[numberOfSectors];
+
+    double currentAngle = -(sectorWeights[0] / totalWeight) * MAX_ANGLE * 0.5;
+    float minAngle = MAX_ANGLE;
+    for (int i = 0; i < numberOfSectors; ++i) {
+      sectorStartAngle[i] = (float) currentAngle;
+      sectorAngle[i] = (float) ((sectorWeights[i] / totalWeight) * MAX_ANGLE);
+      minAngle = Math.min(minAngle, sectorAngle[i]);
+      boundaryX[i] = (float) Math.cos(Math.toRadians(currentAngle));
+      boundaryY[i] = (float) Math.sin(Math.toRadians(currentAngle));
+      boundaryPseudoAngle[i] = pseudoAngle(boundaryX[i], boundaryY[i]);
+      currentAngle += (sectorWeights[i] / totalWeight) * MAX_ANGLE;
+    }
+    minSectorAngle = minAngle;
+  }
+
+  protected static float[] equalWeights(int numberOfSectors) {
+    if (numberOfSectors < 1)
+      throw new IllegalArgumentException(ERROR_MSG_NUMBER_OF_SECTORS +
+              ", passed value = " + numberOfSectors);
+
+    float weights[] = new float[numberOfSectors];
+    for (int i = 0; i < numberOfSectors; ++i)
+      weights[i] = 1.0f;
+    return weights;
+  }
+
+  /**
+   * a function of the angle of (x, y) that increases monotonically from 0 at 0 degrees to 4 at
+   * 360 degrees, one unit per quadrant, computed with one division. 0 for the zero vector.
+   */
+  public static float pseudoAngle(float x, float y) {
+    if (y >= 0) {
+      if (x >= 0)
+        return (x + y) > 0 ? y / (x + y) : 0;
+      return 1 + (-x) / (-x + y);
+    }
+    if (x < 0)
+      return 2 + (-y) / (-x - y);
+    return 3 + x / (x - y);
+  }
+
+  /**
+   * @return the index of the sector the vector (x, y) points to, the zero vector is in
+   * sector 0.
+   */
+  public int classify(float x, float y) {
+    if (numberOfSectors == 1)
+      return 0;
+
+    float pseudoAngle = pseudoAngle(x, y);
+    if (pseudoAngle < boundaryPseudoAngle[1] || pseudoAngle >= boundaryPseudoAngle[0])
+      return 0;
+
+    // the greatest sector in [1, numberOfSectors - 1] that starts at or before the pseudo angle
+    int low = 1;
+    int high = numberOfSectors - 1;
+    while (low < high) {
+      int middle = (low + high + 1) >>> 1;
+      if (boundaryPseudoAngle[middle] <= pseudoAngle)
+        low = middle;
+      else
+        high = middle - 1;
+    }
+    return low;
+  }
+
+  /**
+   * @return true if the passed angle in degrees is inside the passed sector extended by margin
+   * degrees on both sides.
+   */
+  public boolean isWithinSector(int sector, float angle, float margin) {
+    float distance = Math.abs(angle - (sectorStartAngle[sector] + sectorAngle[sector] * 0.5f));
+    distance %= MAX_ANGLE;
+    if (distance > MAX_ANGLE / 2)
+      distance = MAX_ANGLE - distance;
+    return distance <= sectorAngle[sector] * 0.5f + margin;
+  }
+
+  public int getNumberOfSectors() {
+    return numberOfSectors;
+  }
+
+  /**
+   * @return the x coordinate of the unit vector along the clockwise boundary of the sector,
+   * which is also the counter-clockwise boundary of the previous sector.
+   */
+  public float getBoundaryX(int sector) {
+    return boundaryX[sector];
+  }
+
+  /**
+   * @return the y coordinate of the unit vector along the clockwise boundary of the sector.
+   */
+  public float getBoundaryY(int sector) {
+    return boundaryY[sector];
+  }
+
+  /**
+   * @return the angle of the clockwise boundary of the sector in degrees, negative for sector 0.
+   */
+  public float getSectorStartAngle(int sector) {
+    return sectorStartAngle[sector];
+  }
+
+  /**
+   * @return the angular size of the sector in degrees.
+   */
+  public float getSectorAngle(int sector) {
+    return sectorAngle[sector];
+  }
+
+  /**
+   * @return the angular size of the smallest sector in degrees.
+   */
+  public float getMinSectorAngle() {
+    return minSectorAngle;
+  }
+}
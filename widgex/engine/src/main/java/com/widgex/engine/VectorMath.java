@@ -0,0 +1,110 @@
+package com.widgex.engine;
+
+/**
+ * pure java vector math on primitive coordinates, shared by {@code Vector2D} and the callers
+ * that keep their coordinates in primitive fields or arrays.<br>
+ * angles are in degrees, counter-clockwise from the positive x-axis, in [0, 360).
+ */
+public final class VectorMath {
+  /**
+   * number of octants returned by {@link #octant(float, float)}.
+   */
+  public static final int NUMBER_OF_OCTANTS = 8;
+
+  /**
+   * maximum absolute error of {@link #fastAngle(float, float)} in degrees, the polynomial error
+   * is 1e-5 radians (0.00057 degrees) and the rest is float rounding.
+   */
+  public static final float FAST_ANGLE_MAX_ERROR = 0.001f;
+
+  // tan(22.5) and tan(67.5), the octant boundaries inside the first quadrant
+  protected static final float TAN_22_5 = 0.41421356f;
+  protected static final float TAN_67_5 = 2.41421356f;
+
+  protected static final float RADIANS_TO_DEGREES = (float) (180.0 / Math.PI);
+
+  // minimax coefficients of atan(z) on [0, 1], abramowitz and stegun 4.4.49
+  protected static final float ATAN_C1 = 0.9998660f;
+  protected static final float ATAN_C3 = -0.3302995f;
+  protected static final float ATAN_C5 = 0.1801410f;
+  protected static final float ATAN_C7 = -0.0851330f;
+  protected static final float ATAN_C9 = 0.0208351f;
+
+  private VectorMath() {
+  }
+
+  public static float lengthSquared(float x, float y) {
+    return x * x + y * y;
+  }
+
+  /**
+   * exact angle of the vector (x, y) in double precision, 0 for the zero vector.
+   */
+  public static double angle(float x, float y) {
+    double angle;
+    if (x == 0 && y == 0)
+      angle = 0;
+    else if (x == 0 && y > 0)
+      angle = 90;
+    else if (x == 0 && y < 0)
+      angle = 270;
+    else {
+      angle = Math.toDegrees(Math.atan(Math.abs((double) y) / Math.abs((double) x)));
+      if (x < 0 && y >= 0)
+        angle = 180 - angle;
+      else if (x < 0 && y < 0)
+        angle = 180 + angle;
+      else if (x > 0 && y < 0)
+        angle = 360 - angle;
+    }
+    return angle;
+  }
+
+  /**
+   * angle of the vector (x, y) from a polynomial approximation of atan in float precision, one
+   * division and no trigonometric call, within {@link #FAST_ANGLE_MAX_ERROR} degrees of
+   * {@link #angle(float, float)}. 0 for the zero vector.
+   */
+  public static float fastAngle(float x, float y) {
+    if (x == 0 && y == 0)
+      return 0;
+
+    float absX = Math.abs(x);
+    float absY = Math.abs(y);
+    boolean isSteep = absY > absX;
+    float z = isSteep ? absX / absY : absY / absX;
+    float zSquared = z * z;
+    float angle = z * (ATAN_C1 + zSquared * (ATAN_C3 + zSquared * (ATAN_C5 +
+            zSquared * (ATAN_C7 + zSquared * ATAN_C9)))) * RADIANS_TO_DEGREES;
+    if (isSteep)
+      angle = 90 - angle;
+    if (x < 0)
+      angle = 180 - angle;
+    if (y < 0)
+      angle = 360 - angle;
+    return angle < 360 ? angle : 0;
+  }
+
+  /**
+   * classifies the vector (x, y) into one of 8 octants of 45 degrees without trigonometry,
+   * octant i is centered on i * 45 degrees and covers [i * 45 - 22.5, i * 45 + 22.5), so the
+   * result matches the direction of the same angle in the joystick. the zero vector is in
+   * octant 0.
+   */
+  public static int octant(float x, float y) {
+    if (x == 0 && y == 0)
+      return 0;
+
+    float absX = Math.abs(x);
+    float absY = Math.abs(y);
+    if (y >= 0) {
+      if (x >= 0)
+        return absY < absX * TAN_22_5 ? 0 : (absY < absX * TAN_67_5 ? 1 : 2);
+      return absY <= absX * TAN_22_5 ? 4 : (absY <= absX * TAN_67_5 ? 3 : 2);
+    }
+
+    if (x < 0)
+      return absY < absX * TAN_22_5 ? 4 : (absY < absX * TAN_67_5 ? 5 : 6);
+    return absY <= absX * TAN_22_5 ? 0 : (absY <= absX * TAN_67_5 ? 7 : 6);
+  }
+}
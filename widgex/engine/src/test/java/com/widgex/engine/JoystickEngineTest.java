@@ -0,0 +1,91 @@
+package com.widgex.engine;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class JoystickEngineTest {
+  private static final float EPS = 1e-4f;
+
+  @Test
+  public void testMapping() throws Exception {
+    JoystickEngine engine = new JoystickEngine(200);
+    assertEquals(100.0f, engine.getJoystickRadius());
+
+    // right edge, middle height
+    engine.press(200, 100, 1);
+    assertEquals(1.0f, engine.getMappedX(), EPS);
+    assertEquals(0.0f, engine.getMappedY(), EPS);
+    assertEquals(1.0f, engine.getMagnitude(), EPS);
+    assertEquals(0.0f, engine.getAngle(), EPS);
+    assertEquals(0, engine.getDirection());
+
+    // the y-axis points upward once mapped
+    engine.move(100, 50, 2);
+    assertEquals(0.5f, engine.getMappedY(), EPS);
+    assertEquals(90.0f, engine.getAngle(), EPS);
+    assertEquals(2, engine.getDirection());
+
+    // inside the inner circle
+    engine.move(110, 100, 3);
+    assertEquals(0.1f, engine.getMagnitude(), EPS);
+    assertEquals(JoystickEngine.DIRECTION_CENTER, engine.getDirection());
+  }
+
+  @Test
+  public void testKnobIsClampedToTheBorder() throws Exception {
+    JoystickEngine engine = new JoystickEngine(200);
+    engine.press(400, 100, 1);
+    assertEquals(3.0f, engine.getMagnitude(), EPS);
+    assertEquals(1.0f, engine.getMappedX(), EPS);
+    assertEquals(200.0f, engine.getTouchX(), EPS);
+    assertEquals(100.0f, engine.getTouchY(), EPS);
+  }
+
+  @Test
+  public void testStateMachine() throws Exception {
+    JoystickEngine engine = new JoystickEngine(200);
+    assertFalse(engine.onSample(JoystickEngine.ACTION_MOVE, 0, 0, 1));
+    assertFalse(engine.onSample(JoystickEngine.ACTION_UP, 0, 0, 1));
+    assertFalse(engine.isActive());
+
+    assertTrue(engine.onSample(JoystickEngine.ACTION_DOWN, 0, 100, 2));
+    assertTrue(engine.isActive());
+    assertEquals(4, engine.getDirection());
+    assertTrue(engine.onSample(JoystickEngine.ACTION_MOVE, 100, 200, 3));
+    assertEquals(6, engine.getDirection());
+    assertEquals(3, engine.getEventTime());
+
+    assertTrue(engine.onSample(JoystickEngine.ACTION_CANCEL, 100, 200, 4));
+    assertFalse(engine.isActive());
+    assertEquals(0.0f, engine.getMagnitude());
+    assertEquals(JoystickEngine.DIRECTION_CENTER, engine.getDirection());
+    assertEquals(100.0f, engine.getTouchX());
+    assertEquals(100.0f, engine.getTouchY());
+    assertEquals(4, engine.getEventTime());
+  }
+
+  @Test
+  public void testSectorHysteresis() throws Exception {
+    JoystickEngine engine = new JoystickEngine(200);
+    engine.setSectorHysteresis(10);
+
+    // sector 0 ends at 22.5 degrees
+    engine.press(100 + 80 * (float) Math.cos(Math.toRadians(20)),
+            100 - 80 * (float) Math.sin(Math.toRadians(20)), 1);
+    assertEquals(0, engine.getDirection());
+    engine.move(100 + 80 * (float) Math.cos(Math.toRadians(30)),
+            100 - 80 * (float) Math.sin(Math.toRadians(30)), 2);
+    assertEquals(0, engine.getDirection());
+    engine.move(100 + 80 * (float) Math.cos(Math.toRadians(35)),
+            100 - 80 * (float) Math.sin(Math.toRadians(35)), 3);
+    assertEquals(1, engine.getDirection());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidAction() throws Exception {
+    new JoystickEngine(200).onSample(5, 0, 0, 0);
+  }
+}
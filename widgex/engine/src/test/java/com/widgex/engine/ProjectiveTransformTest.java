@@ -0,0 +1,131 @@
+package com.widgex.engine;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class ProjectiveTransformTest {
+  private static final float EPS = 1e-4f;
+
+  private static void assertMapsPoint(ProjectiveTransform transform, float x, float y,
+                                      float expectedX, float expectedY) {
+    float mapped[] = new float[2];
+    transform.mapPoint(x, y, mapped, 0);
+    assertEquals("x of (" + x + ", " + y + ")", expectedX, mapped[0], EPS);
+    assertEquals("y of (" + x + ", " + y + ")", expectedY, mapped[1], EPS);
+  }
+
+  @Test
+  public void testIdentity() throws Exception {
+    ProjectiveTransform transform = new ProjectiveTransform();
+    assertTrue(transform.isIdentity());
+    assertMapsPoint(transform, 3, -7, 3, -7);
+    assertTrue(transform.setPolyToPoly(new float[0], 0, new float[0], 0, 0));
+    assertTrue(transform.isIdentity());
+  }
+
+  @Test
+  public void testOnePointTranslates() throws Exception {
+    ProjectiveTransform transform = new ProjectiveTransform();
+    assertTrue(transform.setPolyToPoly(new float[]{1, 2}, 0, new float[]{4, 6}, 0, 1));
+    assertMapsPoint(transform, 0, 0, 3, 4);
+    assertMapsPoint(transform, 10, 10, 13, 14);
+
+    float mapped[] = new float[2];
+    transform.mapVector(5, 5, mapped, 0);
+    assertEquals(5, mapped[0], EPS);
+    assertEquals(5, mapped[1], EPS);
+  }
+
+  @Test
+  public void testTwoPointsRotateAndScale() throws Exception {
+    ProjectiveTransform transform = new ProjectiveTransform();
+    // (0, 0) -> (1, 1) and (1, 0) -> (1, 3), a rotation by 90 degrees and a scale by 2
+    assertTrue(transform.setPolyToPoly(new float[]{0, 0, 1, 0}, 0,
+            new float[]{1, 1, 1, 3}, 0, 2));
+    assertMapsPoint(transform, 0, 0, 1, 1);
+    assertMapsPoint(transform, 1, 0, 1, 3);
+    assertMapsPoint(transform, 0, 1, -1, 1);
+  }
+
+  @Test
+  public void testThreePointsAffine() throws Exception {
+    ProjectiveTransform transform = new ProjectiveTransform();
+    assertTrue(transform.setPolyToPoly(new float[]{0, 0, 10, 0, 0, 10}, 0,
+            new float[]{5, 5, 25, 5, 8, 35}, 0, 3));
+    assertTrue(transform.isAffine());
+    assertMapsPoint(transform, 0, 0, 5, 5);
+    assertMapsPoint(transform, 10, 0, 25, 5);
+    assertMapsPoint(transform, 0, 10, 8, 35);
+    assertMapsPoint(transform, 10, 10, 28, 35);
+  }
+
+  @Test
+  public void testFourPointsJoystickCalibration() throws Exception {
+    final float dimension = 300;
+    float src[] = {0, 0, 0, dimension, dimension, 0, dimension, dimension};
+    float dst[] = {-1, 1, -1, -1, 1, 1, 1, -1};
+    ProjectiveTransform transformation = new ProjectiveTransform();
+    ProjectiveTransform detransformation = new ProjectiveTransform();
+    assertTrue(transformation.setPolyToPoly(src, 0, dst, 0, 4));
+    assertTrue(detransformation.setPolyToPoly(dst, 0, src, 0, 4));
+    assertTrue(transformation.isAffine());
+    assertTrue(detransformation.isAffine());
+
+    assertMapsPoint(transformation, 150, 150, 0, 0);
+    assertMapsPoint(transformation, 300, 150, 1, 0);
+    assertMapsPoint(transformation, 150, 0, 0, 1);
+    assertMapsPoint(transformation, 75, 225, -0.5f, -0.5f);
+    assertMapsPoint(detransformation, 0, 0, 150, 150);
+    assertMapsPoint(detransformation, -1, -1, 0, 300);
+  }
+
+  @Test
+  public void testFourPointsPerspective() throws Exception {
+    float src[] = {0, 0, 1, 0, 1, 1, 0, 1};
+    float dst[] = {0, 0, 4, 0, 3, 2, 1, 2};
+    ProjectiveTransform transform = new ProjectiveTransform();
+    assertTrue(transform.setPolyToPoly(src, 0, dst, 0, 4));
+    assertFalse(transform.isAffine());
+    for (int i = 0; i < 4; ++i)
+      assertMapsPoint(transform, src[2 * i], src[2 * i + 1], dst[2 * i], dst[2 * i + 1]);
+
+    // a vector is mapped as the difference between the mapped point and the mapped origin
+    float mapped[] = new float[2];
+    transform.mapVector(1, 1, mapped, 0);
+    assertEquals(3, mapped[0], EPS);
+    assertEquals(2, mapped[1], EPS);
+  }
+
+  @Test
+  public void testBulkMappingWithOffsets() throws Exception {
+    ProjectiveTransform transform = new ProjectiveTransform();
+    assertTrue(transform.setPolyToPoly(new float[]{0, 0, 10, 0, 0, 10}, 0,
+            new float[]{5, 5, 25, 5, 5, 25}, 0, 3));
+
+    // in place, skipping the first pair and leaving the last one untouched
+    float points[] = {-1, -1, 0, 0, 1, 2, 10, 10, -1, -1};
+    transform.mapPoints(points, 2, points, 2, 3);
+    float expectedPoints[] = {-1, -1, 5, 5, 7, 9, 25, 25, -1, -1};
+    for (int i = 0; i < points.length; ++i)
+      assertEquals("point value " + i, expectedPoints[i], points[i], EPS);
+
+    float vectors[] = new float[4];
+    transform.mapVectors(vectors, 0, new float[]{1, 2, 10, 10}, 0, 2);
+    float expectedVectors[] = {2, 4, 20, 20};
+    for (int i = 0; i < vectors.length; ++i)
+      assertEquals("vector value " + i, expectedVectors[i], vectors[i], EPS);
+  }
+
+  @Test
+  public void testDegeneratePointsAreRejected() throws Exception {
+    ProjectiveTransform transform = new ProjectiveTransform();
+    assertFalse(transform.setPolyToPoly(new float[]{1, 1, 1, 1}, 0,
+            new float[]{0, 0, 1, 1}, 0, 2));
+    assertFalse(transform.setPolyToPoly(new float[]{0, 0, 1, 1, 2, 2}, 0,
+            new float[]{0, 0, 1, 0, 0, 1}, 0, 3));
+    assertTrue(transform.isIdentity());
+  }
+}
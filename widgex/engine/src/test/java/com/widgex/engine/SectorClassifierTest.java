@@ -0,0 +1,110 @@
+package com.widgex.engine;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class SectorClassifierTest {
+  private static final double BOUNDARY_EPS = 1e-3;
+
+  private static int expectedSector(double angle, float[] weights) {
+    double totalWeight = 0;
+    for (float weight : weights)
+      totalWeight += weight;
+
+    double start = -(weights[0] / totalWeight) * 180.0;
+    double shifted = angle - start;
+    if (shifted >= 360.0)
+      shifted -= 360.0;
+    double end = 0;
+    for (int i = 0; i < weights.length; ++i) {
+      end += (weights[i] / totalWeight) * 360.0;
+      if (shifted < end)
+        return i;
+    }
+    return 0;
+  }
+
+  private static boolean isNearBoundary(double angle, float[] weights) {
+    double totalWeight = 0;
+    for (float weight : weights)
+      totalWeight += weight;
+
+    double boundary = -(weights[0] / totalWeight) * 180.0;
+    for (float weight : weights) {
+      double distance = Math.abs(angle - boundary) % 360.0;
+      if (Math.min(distance, 360.0 - distance) < BOUNDARY_EPS)
+        return true;
+      boundary += (weight / totalWeight) * 360.0;
+    }
+    return false;
+  }
+
+  private static void assertClassifiesLikeAngles(SectorClassifier classifier, float[] weights) {
+    Random random = new Random(weights.length);
+    for (int i = 0; i < 50000; ++i) {
+      float x = random.nextFloat() * 2 - 1;
+      float y = random.nextFloat() * 2 - 1;
+      double angle = VectorMath.angle(x, y);
+      if (isNearBoundary(angle, weights))
+        continue;
+      assertEquals("sector of (" + x + ", " + y + "), angle = " + angle,
+              expectedSector(angle, weights), classifier.classify(x, y));
+    }
+  }
+
+  @Test
+  public void testEqualSectors() throws Exception {
+    int counts[] = {1, 2, 4, 8, 16, 32};
+    for (int numberOfSectors : counts) {
+      SectorClassifier classifier = new SectorClassifier(numberOfSectors);
+      assertEquals(numberOfSectors, classifier.getNumberOfSectors());
+      assertEquals(360.0f / numberOfSectors, classifier.getMinSectorAngle(), 1e-4f);
+      assertClassifiesLikeAngles(classifier, SectorClassifier.equalWeights(numberOfSectors));
+    }
+  }
+
+  @Test
+  public void testEightSectorsMatchOctants() throws Exception {
+    SectorClassifier classifier = new SectorClassifier(8);
+    Random random = new Random(8);
+    for (int i = 0; i < 50000; ++i) {
+      float x = random.nextFloat() * 2 - 1;
+      float y = random.nextFloat() * 2 - 1;
+      if (isNearBoundary(VectorMath.angle(x, y), SectorClassifier.equalWeights(8)))
+        continue;
+      assertEquals(VectorMath.octant(x, y), classifier.classify(x, y));
+    }
+    assertEquals(0, classifier.classify(0, 0));
+  }
+
+  @Test
+  public void testWeightedSectors() throws Exception {
+    float weights[] = {3, 1, 2, 1, 3, 1, 2, 1};
+    SectorClassifier classifier = new SectorClassifier(weights);
+    assertEquals(360.0f / 14, classifier.getMinSectorAngle(), 1e-4f);
+    assertEquals(-360.0f * 3 / 28, classifier.getSectorStartAngle(0), 1e-4f);
+    assertClassifiesLikeAngles(classifier, weights);
+  }
+
+  @Test
+  public void testIsWithinSector() throws Exception {
+    SectorClassifier classifier = new SectorClassifier(8);
+    assertTrue(classifier.isWithinSector(0, 350, 0));
+    assertTrue(classifier.isWithinSector(0, 22, 0));
+    assertFalse(classifier.isWithinSector(0, 25, 0));
+    assertTrue(classifier.isWithinSector(0, 25, 5));
+    assertTrue(classifier.isWithinSector(0, 332.5f, 5));
+    assertFalse(classifier.isWithinSector(0, 330, 5));
+    assertTrue(classifier.isWithinSector(7, 0, 25));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testZeroWeightIsRejected() throws Exception {
+    new SectorClassifier(new float[]{1, 0, 1});
+  }
+}
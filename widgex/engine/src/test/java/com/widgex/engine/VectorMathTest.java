@@ -0,0 +1,59 @@
+package com.widgex.engine;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+
+public class VectorMathTest {
+  private static int expectedOctant(double angle) {
+    return ((int) (((angle + 22.5) * 8) / 360.0)) % 8;
+  }
+
+  @Test
+  public void testFastAngleErrorBound() throws Exception {
+    assertEquals(0.0f, VectorMath.fastAngle(0, 0), 0.0f);
+    Random random = new Random(42);
+    for (int i = 0; i < 100000; ++i) {
+      float x = random.nextFloat() * 2 - 1;
+      float y = random.nextFloat() * 2 - 1;
+      double expected = VectorMath.angle(x, y);
+      double error = Math.abs(VectorMath.fastAngle(x, y) - expected);
+      error = Math.min(error, 360 - error);
+      assertEquals("angle of (" + x + ", " + y + ")", 0.0, error, VectorMath.FAST_ANGLE_MAX_ERROR);
+    }
+  }
+
+  @Test
+  public void testFastAngleOnAxesAndDiagonals() throws Exception {
+    float expected = 0;
+    for (int i = 0; i < 8; ++i, expected += 45) {
+      double radians = Math.toRadians(expected);
+      float x = Math.abs(Math.cos(radians)) < 1e-9 ? 0 : (float) Math.cos(radians);
+      float y = Math.abs(Math.sin(radians)) < 1e-9 ? 0 : (float) Math.sin(radians);
+      assertEquals("angle " + expected, expected, VectorMath.fastAngle(x, y),
+              VectorMath.FAST_ANGLE_MAX_ERROR);
+    }
+  }
+
+  @Test
+  public void testOctantMatchesAngle() throws Exception {
+    assertEquals(0, VectorMath.octant(0, 0));
+    assertEquals(2, VectorMath.octant(0, 1));
+    assertEquals(4, VectorMath.octant(-1, 0));
+    assertEquals(6, VectorMath.octant(0, -1));
+
+    Random random = new Random(7);
+    for (int i = 0; i < 100000; ++i) {
+      float x = random.nextFloat() * 2 - 1;
+      float y = random.nextFloat() * 2 - 1;
+      double angle = VectorMath.angle(x, y);
+      double distanceToBoundary = Math.abs(((angle + 22.5) % 45.0 + 45.0) % 45.0);
+      if (distanceToBoundary < 1e-3 || distanceToBoundary > 45.0 - 1e-3)
+        continue;
+      assertEquals("octant of (" + x + ", " + y + ")", expectedOctant(angle),
+              VectorMath.octant(x, y));
+    }
+  }
+}
@@ -2,81 +2,357 @@ package com.widgex.graphics.utilities;
 
 import android.graphics.Matrix;
 import android.graphics.PointF;
+import android.graphics.RectF;
 
+import com.widgex.engine.ProjectiveTransform;
+
+/**
+ * an android Matrix that maps points and vectors in pure java with a
+ * {@link ProjectiveTransform}.<br>
+ * every method changing the matrix marks the transform stale, the values are copied to it once
+ * by the next mapping, so mapping with an unchanged matrix does not cross JNI. the other
+ * methods, mapRect and mapRadius included, still use the native matrix.
+ */
 public class TransformationMatrix extends Matrix {
   protected float transformationInput[];
   protected float transformationOutput[];
+  protected float polyToPolySrc[];
+  protected float polyToPolyDst[];
+  protected ProjectiveTransform transform;
+  protected float transformValues[];
+  protected boolean isTransformStale;
 
   public TransformationMatrix() {
     super();
     transformationInput = new float[2];
     transformationOutput = new float[2];
+    polyToPolySrc = new float[0];
+    polyToPolyDst = new float[0];
+    initTransform();
   }
 
   public TransformationMatrix(Matrix src) {
     super(src);
     transformationInput = new float[2];
     transformationOutput = new float[2];
+    polyToPolySrc = new float[0];
+    polyToPolyDst = new float[0];
+    initTransform();
+  }
+
+  protected void initTransform() {
+    transform = new ProjectiveTransform();
+    transformValues = new float[ProjectiveTransform.NUMBER_OF_VALUES];
+    isTransformStale = true;
+  }
+
+  /**
+   * copies the values of the native matrix to the transform if the matrix changed since the
+   * last mapping.
+   */
+  protected void updateTransform() {
+    if (!isTransformStale)
+      return;
+    getValues(transformValues);
+    transform.setValues(transformValues);
+    isTransformStale = false;
+  }
+
+  protected void invalidateTransform() {
+    isTransformStale = true;
   }
 
   public Vector2D mapPoint(float x, float y) {
-    transformationInput[0] = x;
-    transformationInput[1] = y;
-    this.mapPoints(transformationOutput, transformationInput);
+    updateTransform();
+    transform.mapPoint(x, y, transformationOutput, 0);
     return new Vector2D(transformationOutput[0], transformationOutput[1]);
   }
 
   public Vector2D mapPoint(final PointF pointF) {
-    transformationInput[0] = pointF.x;
-    transformationInput[1] = pointF.y;
-    this.mapPoints(transformationOutput, transformationInput);
-    return new Vector2D(transformationOutput[0], transformationOutput[1]);
+    return mapPoint(pointF.x, pointF.y);
   }
 
-  public void mapPoint(final PointF pointF, PointF mappedPoint) {
-    transformationInput[0] = pointF.x;
-    transformationInput[1] = pointF.y;
-    this.mapPoints(transformationOutput, transformationInput);
+  public void mapPoint(float x, float y, PointF mappedPoint) {
+    updateTransform();
+    transform.mapPoint(x, y, transformationOutput, 0);
     mappedPoint.set(transformationOutput[0], transformationOutput[1]);
   }
 
+  public void mapPoint(final PointF pointF, PointF mappedPoint) {
+    mapPoint(pointF.x, pointF.y, mappedPoint);
+  }
+
   public Vector2D mapVector(float x, float y) {
-    transformationInput[0] = x;
-    transformationInput[1] = y;
-    this.mapVectors(transformationOutput, transformationInput);
+    updateTransform();
+    transform.mapVector(x, y, transformationOutput, 0);
     return new Vector2D(transformationOutput[0], transformationOutput[1]);
   }
 
   public Vector2D mapVector(final PointF pointF) {
-    transformationInput[0] = pointF.x;
-    transformationInput[1] = pointF.y;
-    this.mapVectors(transformationOutput, transformationInput);
-    return new Vector2D(transformationOutput[0], transformationOutput[1]);
+    return mapVector(pointF.x, pointF.y);
+  }
+
+  public void mapVector(float x, float y, PointF mappedVector) {
+    updateTransform();
+    transform.mapVector(x, y, transformationOutput, 0);
+    mappedVector.set(transformationOutput[0], transformationOutput[1]);
   }
 
   public void mapVector(final PointF pointF, PointF mappedPoint) {
-    transformationInput[0] = pointF.x;
-    transformationInput[1] = pointF.y;
-    this.mapVectors(transformationOutput, transformationInput);
-    mappedPoint.set(transformationOutput[0], transformationOutput[1]);
+    mapVector(pointF.x, pointF.y, mappedPoint);
+  }
+
+  @Override
+  public void mapPoints(float[] dst, int dstIndex, float[] src, int srcIndex, int pointCount) {
+    updateTransform();
+    transform.mapPoints(dst, dstIndex, src, srcIndex, pointCount);
+  }
+
+  @Override
+  public void mapPoints(float[] dst, float[] src) {
+    if (dst.length != src.length)
+      throw new ArrayIndexOutOfBoundsException();
+    mapPoints(dst, 0, src, 0, dst.length >> 1);
+  }
+
+  @Override
+  public void mapPoints(float[] pts) {
+    mapPoints(pts, 0, pts, 0, pts.length >> 1);
+  }
+
+  @Override
+  public void mapVectors(float[] dst, int dstIndex, float[] src, int srcIndex, int vectorCount) {
+    updateTransform();
+    transform.mapVectors(dst, dstIndex, src, srcIndex, vectorCount);
+  }
+
+  @Override
+  public void mapVectors(float[] dst, float[] src) {
+    if (dst.length != src.length)
+      throw new ArrayIndexOutOfBoundsException();
+    mapVectors(dst, 0, src, 0, dst.length >> 1);
+  }
+
+  @Override
+  public void mapVectors(float[] vecs) {
+    mapVectors(vecs, 0, vecs, 0, vecs.length >> 1);
   }
 
   public boolean setPolyToPoly(PointF[] srcPoints, PointF[] dstPoints) {
     if (srcPoints.length != dstPoints.length)
       throw new IllegalArgumentException("number of src points not equal to number of dst points");
 
-    float src[] = new float[srcPoints.length * 2];
-    float dst[] = new float[dstPoints.length * 2];
+    // the buffers only grow, so calibrating repeatedly with the same number of points is
+    // allocation free
+    if (polyToPolySrc.length < srcPoints.length * 2) {
+      polyToPolySrc = new float[srcPoints.length * 2];
+      polyToPolyDst = new float[dstPoints.length * 2];
+    }
+
     for (int i = 0, j = 0; i < srcPoints.length; i++, j += 2) {
-      src[j] = srcPoints[i].x;
-      src[j + 1] = srcPoints[i].y;
+      polyToPolySrc[j] = srcPoints[i].x;
+      polyToPolySrc[j + 1] = srcPoints[i].y;
     }
 
     for (int i = 0, j = 0; i < dstPoints.length; i++, j += 2) {
-      dst[j] = dstPoints[i].x;
-      dst[j + 1] = dstPoints[i].y;
+      polyToPolyDst[j] = dstPoints[i].x;
+      polyToPolyDst[j + 1] = dstPoints[i].y;
     }
 
-    return this.setPolyToPoly(src, 0, dst, 0, srcPoints.length);
+    return this.setPolyToPoly(polyToPolySrc, 0, polyToPolyDst, 0, srcPoints.length);
+  }
+
+  @Override
+  public boolean setPolyToPoly(float[] src, int srcIndex, float[] dst, int dstIndex,
+                               int pointCount) {
+    invalidateTransform();
+    return super.setPolyToPoly(src, srcIndex, dst, dstIndex, pointCount);
+  }
+
+  @Override
+  public boolean setRectToRect(RectF src, RectF dst, ScaleToFit stf) {
+    invalidateTransform();
+    return super.setRectToRect(src, dst, stf);
+  }
+
+  @Override
+  public boolean invert(Matrix inverse) {
+    if (inverse instanceof TransformationMatrix)
+      ((TransformationMatrix) inverse).invalidateTransform();
+    return super.invert(inverse);
+  }
+
+  @Override
+  public void setValues(float[] values) {
+    invalidateTransform();
+    super.setValues(values);
+  }
+
+  @Override
+  public void reset() {
+    invalidateTransform();
+    super.reset();
+  }
+
+  @Override
+  public void set(Matrix src) {
+    invalidateTransform();
+    super.set(src);
+  }
+
+  @Override
+  public void setTranslate(float dx, float dy) {
+    invalidateTransform();
+    super.setTranslate(dx, dy);
+  }
+
+  @Override
+  public void setScale(float sx, float sy, float px, float py) {
+    invalidateTransform();
+    super.setScale(sx, sy, px, py);
+  }
+
+  @Override
+  public void setScale(float sx, float sy) {
+    invalidateTransform();
+    super.setScale(sx, sy);
+  }
+
+  @Override
+  public void setRotate(float degrees, float px, float py) {
+    invalidateTransform();
+    super.setRotate(degrees, px, py);
+  }
+
+  @Override
+  public void setRotate(float degrees) {
+    invalidateTransform();
+    super.setRotate(degrees);
+  }
+
+  @Override
+  public void setSinCos(float sinValue, float cosValue, float px, float py) {
+    invalidateTransform();
+    super.setSinCos(sinValue, cosValue, px, py);
+  }
+
+  @Override
+  public void setSinCos(float sinValue, float cosValue) {
+    invalidateTransform();
+    super.setSinCos(sinValue, cosValue);
+  }
+
+  @Override
+  public void setSkew(float kx, float ky, float px, float py) {
+    invalidateTransform();
+    super.setSkew(kx, ky, px, py);
+  }
+
+  @Override
+  public void setSkew(float kx, float ky) {
+    invalidateTransform();
+    super.setSkew(kx, ky);
+  }
+
+  @Override
+  public boolean setConcat(Matrix a, Matrix b) {
+    invalidateTransform();
+    return super.setConcat(a, b);
+  }
+
+  @Override
+  public boolean preTranslate(float dx, float dy) {
+    invalidateTransform();
+    return super.preTranslate(dx, dy);
+  }
+
+  @Override
+  public boolean preScale(float sx, float sy, float px, float py) {
+    invalidateTransform();
+    return super.preScale(sx, sy, px, py);
+  }
+
+  @Override
+  public boolean preScale(float sx, float sy) {
+    invalidateTransform();
+    return super.preScale(sx, sy);
+  }
+
+  @Override
+  public boolean preRotate(float degrees, float px, float py) {
+    invalidateTransform();
+    return super.preRotate(degrees, px, py);
+  }
+
+  @Override
+  public boolean preRotate(float degrees) {
+    invalidateTransform();
+    return super.preRotate(degrees);
+  }
+
+  @Override
+  public boolean preSkew(float kx, float ky, float px, float py) {
+    invalidateTransform();
+    return super.preSkew(kx, ky, px, py);
+  }
+
+  @Override
+  public boolean preSkew(float kx, float ky) {
+    invalidateTransform();
+    return super.preSkew(kx, ky);
+  }
+
+  @Override
+  public boolean preConcat(Matrix other) {
+    invalidateTransform();
+    return super.preConcat(other);
+  }
+
+  @Override
+  public boolean postTranslate(float dx, float dy) {
+    invalidateTransform();
+    return super.postTranslate(dx, dy);
+  }
+
+  @Override
+  public boolean postScale(float sx, float sy, float px, float py) {
+    invalidateTransform();
+    return super.postScale(sx, sy, px, py);
+  }
+
+  @Override
+  public boolean postScale(float sx, float sy) {
+    invalidateTransform();
+    return super.postScale(sx, sy);
+  }
+
+  @Override
+  public boolean postRotate(float degrees, float px, float py) {
+    invalidateTransform();
+    return super.postRotate(degrees, px, py);
+  }
+
+  @Override
+  public boolean postRotate(float degrees) {
+    invalidateTransform();
+    return super.postRotate(degrees);
+  }
+
+  @Override
+  public boolean postSkew(float kx, float ky, float px, float py) {
+    invalidateTransform();
+    return super.postSkew(kx, ky, px, py);
+  }
+
+  @Override
+  public boolean postSkew(float kx, float ky) {
+    invalidateTransform();
+    return super.postSkew(kx, ky);
+  }
+
+  @Override
+  public boolean postConcat(Matrix other) {
+    invalidateTransform();
+    return super.postConcat(other);
   }
 }
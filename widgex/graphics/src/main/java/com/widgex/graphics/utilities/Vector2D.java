@@ -3,6 +3,8 @@ package com.widgex.graphics.utilities;
 import android.graphics.Point;
 import android.graphics.PointF;
 
+import com.widgex.engine.VectorMath;
+
 public class Vector2D extends PointF {
   public Vector2D() {
     super();
@@ -25,22 +27,40 @@ public class Vector2D extends PointF {
   }
 
   public double angle() {
-    double angle;
-    if (this.x == 0 && this.y == 0)
-      angle = 0;
-    else if (this.x == 0 && this.y > 0)
-      angle = 90;
-    else if (this.x == 0 && this.y < 0)
-      angle = 270;
-    else {
-      angle = Math.toDegrees(Math.atan(Math.abs((double) this.y) / Math.abs((double) this.x)));
-      if (this.x < 0 && this.y >= 0)
-        angle = 180 - angle;
-      else if (this.x < 0 && this.y < 0)
-        angle = 180 + angle;
-      else if (this.x > 0 && this.y < 0)
-        angle = 360 - angle;
+    return VectorMath.angle(this.x, this.y);
+  }
+
+  /**
+   * @return the angle of the vector in degrees in [0, 360), within
+   * {@link VectorMath#FAST_ANGLE_MAX_ERROR} degrees of {@link #angle()} but without any
+   * trigonometric call.
+   */
+  public float fastAngle() {
+    return VectorMath.fastAngle(this.x, this.y);
+  }
+
+  /**
+   * @return the octant of the vector, see {@link VectorMath#octant(float, float)}.
+   */
+  public int octant() {
+    return VectorMath.octant(this.x, this.y);
+  }
+
+  public float lengthSquared() {
+    return this.x * this.x + this.y * this.y;
+  }
+
+  /**
+   * scales the vector to unit length, the zero vector is left unchanged.
+   *
+   * @return the length of the vector before normalization.
+   */
+  public float normalize() {
+    float length = (float) Math.sqrt(lengthSquared());
+    if (length > 0) {
+      this.x /= length;
+      this.y /= length;
     }
-    return angle;
+    return length;
   }
 }
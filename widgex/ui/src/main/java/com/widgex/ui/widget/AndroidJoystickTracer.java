@@ -0,0 +1,111 @@
+package com.widgex.ui.widget;
+
+import android.os.Build;
+import android.os.Trace;
+
+import java.lang.reflect.Method;
+
+/**
+ * a {@link JoystickTracer} writing to {@link Trace}, the sections are recorded on all the
+ * supported API levels and the counters from API 29, where {@code Trace.setCounter} was added.
+ * <br>
+ * the counter names are prefixed with the passed prefix, so the counters of several joysticks
+ * are kept apart in the trace.<br>
+ * whether tracing is enabled is checked when a section begins, not on every counter, so the
+ * counters set in a section follow the state at its beginning.
+ */
+public class AndroidJoystickTracer implements JoystickTracer {
+  protected static final Object[] NO_ARGUMENTS = new Object[0];
+  // resolved once, null below API 29
+  protected static final Method IS_ENABLED_METHOD = getTraceMethod("isEnabled");
+  protected static final Method SET_COUNTER_METHOD =
+          getTraceMethod("setCounter", String.class, long.class);
+
+  protected final String counterPrefix;
+  // the prefixed names of the counters set by the joystick, computed once
+  protected final String magnitudeCounterName;
+  protected final String directionCounterName;
+  protected final String notifierQueueDepthCounterName;
+  // refreshed when a section begins, read by the counters of any thread
+  protected volatile boolean isEnabled;
+
+  public AndroidJoystickTracer() {
+    this("Joystick");
+  }
+
+  public AndroidJoystickTracer(String counterPrefix) {
+    if (counterPrefix == null)
+      throw new NullPointerException(Joystick.ERROR_MSG_NULL_ARGUMENT);
+
+    this.counterPrefix = counterPrefix;
+    magnitudeCounterName = prefixCounterName(Joystick.TRACE_COUNTER_MAGNITUDE);
+    directionCounterName = prefixCounterName(Joystick.TRACE_COUNTER_DIRECTION);
+    notifierQueueDepthCounterName = prefixCounterName(Joystick.TRACE_COUNTER_NOTIFIER_QUEUE_DEPTH);
+  }
+
+  /**
+   * @return the public static method of {@link Trace} with the passed signature, or null if it
+   * is not available on this API level.
+   */
+  protected static Method getTraceMethod(String name, Class<?>... parameterTypes) {
+    if (Build.VERSION.SDK_INT < 29)
+      return null;
+    try {
+      return Trace.class.getMethod(name, parameterTypes);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  protected static boolean isTraceEnabled() {
+    if (IS_ENABLED_METHOD == null || SET_COUNTER_METHOD == null)
+      return false;
+    try {
+      return (Boolean) IS_ENABLED_METHOD.invoke(null, NO_ARGUMENTS);
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  protected String prefixCounterName(String counterName) {
+    return counterPrefix + "#" + counterName;
+  }
+
+  /**
+   * @return the prefixed name of the passed counter, only the names unknown to the joystick are
+   * concatenated.
+   */
+  protected String getPrefixedCounterName(String counterName) {
+    if (counterName == Joystick.TRACE_COUNTER_MAGNITUDE)
+      return magnitudeCounterName;
+    if (counterName == Joystick.TRACE_COUNTER_DIRECTION)
+      return directionCounterName;
+    if (counterName == Joystick.TRACE_COUNTER_NOTIFIER_QUEUE_DEPTH)
+      return notifierQueueDepthCounterName;
+    return prefixCounterName(counterName);
+  }
+
+  @Override
+  public void beginSection(String sectionName) {
+    isEnabled = isTraceEnabled();
+    Trace.beginSection(sectionName);
+  }
+
+  @Override
+  public void endSection() {
+    Trace.endSection();
+  }
+
+  @Override
+  public void setCounter(String counterName, long value) {
+    if (!isEnabled)
+      return;
+
+    try {
+      // the boxed value is only allocated while tracing
+      SET_COUNTER_METHOD.invoke(null, getPrefixedCounterName(counterName), value);
+    } catch (Exception e) {
+      // a counter is dropped rather than failing the input path
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.widgex.ui.widget;
+
+/**
+ * a consistent snapshot of all the sticks registered to a {@link JoystickController}, the knob
+ * states of one snapshot were all current at the same instant, so a new sample of one stick is
+ * never paired with a stale sample of another one.<br>
+ * instances are reused by the controller, they must be copied using
+ * {@link #set(ControllerState)} if they are needed after the listener returns.
+ */
+public class ControllerState {
+  /**
+   * incremented every tick where a stick published a new state or the registered sticks
+   * changed, so two snapshots with the same version are identical.
+   */
+  public long version;
+  /**
+   * the time of the tick that produced this snapshot, in the
+   * {@link android.os.SystemClock#uptimeMillis()} time base.
+   */
+  public long tickTime;
+  /**
+   * the state of each stick, in the order the sticks were added to the controller.
+   */
+  public KnobState[] knobStates;
+
+  public ControllerState() {
+    knobStates = new KnobState[0];
+  }
+
+  public int getNumberOfSticks() {
+    return knobStates.length;
+  }
+
+  /**
+   * resizes knobStates to the passed number of sticks, keeping the existing snapshots.
+   */
+  public void setNumberOfSticks(int numberOfSticks) {
+    if (numberOfSticks == knobStates.length)
+      return;
+
+    KnobState[] knobStates = new KnobState[numberOfSticks];
+    System.arraycopy(this.knobStates, 0, knobStates, 0,
+            Math.min(numberOfSticks, this.knobStates.length));
+    for (int i = this.knobStates.length; i < numberOfSticks; ++i)
+      knobStates[i] = new KnobState();
+    this.knobStates = knobStates;
+  }
+
+  public void set(ControllerState controllerState) {
+    this.version = controllerState.version;
+    this.tickTime = controllerState.tickTime;
+    setNumberOfSticks(controllerState.knobStates.length);
+    for (int i = 0; i < knobStates.length; ++i)
+      knobStates[i].set(controllerState.knobStates[i]);
+  }
+}
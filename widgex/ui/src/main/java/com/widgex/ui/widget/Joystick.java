@@ -4,27 +4,34 @@ import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Path;
 import android.graphics.Point;
-import android.graphics.PointF;
+import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Handler;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.Display;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.WindowManager;
 
-import com.widgex.graphics.utilities.TransformationMatrix;
+import com.widgex.engine.JoystickEngine;
+import com.widgex.engine.SectorClassifier;
 import com.widgex.graphics.utilities.Vector2D;
 import com.widgex.ui.R;
 
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
 public class Joystick extends View {
   /**
    * central region index.
    */
-  public static final int DIRECTION_CENTER = -1;
+  public static final int DIRECTION_CENTER = JoystickEngine.DIRECTION_CENTER;
   /**
    * constant value of right direction.
    */
@@ -59,9 +66,10 @@ public class Joystick extends View {
   public static final int DIRECTION_RIGHT_BACKWARD = 7;
 
   /**
-   * number of sectors/directions.
+   * default number of sectors/directions, the DIRECTION_* constants name the sectors of this
+   * default configuration.
    */
-  public static final int NUMBER_OF_SECTORS = 8;
+  public static final int NUMBER_OF_SECTORS = JoystickEngine.NUMBER_OF_SECTORS;
 
   /**
    * default ratio between joystick side length to minimum screen dimension (min between width
@@ -81,7 +89,8 @@ public class Joystick extends View {
    * the ratio between the radius of the inner circle to the radius of the joystick which is
    * half the side length.
    */
-  public static final float INNER_CIRCLE_RADIUS_TO_JOYSTICK_RADIUS_DEFAULT_RATIO = 0.3f;
+  public static final float INNER_CIRCLE_RADIUS_TO_JOYSTICK_RADIUS_DEFAULT_RATIO =
+          JoystickEngine.INNER_CIRCLE_RADIUS_TO_JOYSTICK_RADIUS_DEFAULT_RATIO;
 
   /**
    * the default radius of the knob when the user is touching the joystick.
@@ -104,45 +113,98 @@ public class Joystick extends View {
   public static final float IDLE_VIEW_DEFAULT_OPACITY = 0.2f;
 
   /**
-   * number of view corners.
+   * the default duration in milliseconds of the opacity fade between the idle and the active
+   * opacity, 0 switches the opacity at once.
    */
-  protected static final int NUMBER_OF_CORNERS = 4;
+  public static final long OPACITY_FADE_DEFAULT_DURATION = 0; // milliseconds
 
   /**
-   * the coordinate space of the joystick view is mapped to [-1, 1] on both x-axis and y-axis
-   * to ease the calculations, but for the y-axis the coordinate space is inverted because
-   * graphical components have the positive direction of the y-axis downward.<br>
-   * this is the mapped minimum x coordinate.
+   * the angle of each sector in the default configuration.
    */
-  protected static final float MAPPED_MIN_X_COORD = -1;
+  public static final float SECTOR_ANGLE = 45.0f;
+
   /**
-   * the mapped minimum y coordinate.
+   * maximum angle.
    */
-  protected static final float MAPPED_MIN_Y_COORD = -1;
+  public static final float MAX_ANGLE = JoystickEngine.MAX_ANGLE;
+
   /**
-   * the mapped maximum x coordinate.
+   * the call to onKnobMove of OnKnobMoveListener is threaded, this is the default number of
+   * milliseconds between each two successive calls, 0 notifies continuously.
    */
-  protected static final float MAPPED_MAX_X_COORD = 1;
+  public static final long ON_KNOB_MOVE_NOTIFICATION_DEFAULT_RATE = 50; // milliseconds
+
+  /**
+   * the listeners are notified from a background thread every onKnobMoveNotificationRate
+   * milliseconds while the joystick is touched.
+   */
+  public static final int NOTIFICATION_POLICY_RATE = 0;
   /**
-   * the mapped maximum y coordinate.
+   * the listeners are notified on the UI thread once per display frame using
+   * {@link Choreographer} frame callbacks while the joystick is touched. input is dispatched
+   * before the frame callbacks and the view is drawn after them within the same frame, so every
+   * notified state is exactly the state drawn in that frame.
    */
-  protected static final float MAPPED_MAX_Y_COORD = 1;
+  public static final int NOTIFICATION_POLICY_FRAME = 1;
+  /**
+   * the listeners are notified from a background thread like {@link #NOTIFICATION_POLICY_RATE},
+   * but the period adapts to the velocity of the knob: onKnobMoveNotificationRate at the
+   * velocity thresholds, shorter for faster moves and backing off exponentially while the knob
+   * is stationary, see {@link KnobMoveRateAdapter}.
+   */
+  public static final int NOTIFICATION_POLICY_ADAPTIVE = 2;
+  /**
+   * the listeners are notified on the UI thread from onTouchEvent right after each touch event
+   * is processed, with no polling delay. the listeners must return quickly since they delay the
+   * next touch events and the drawing.
+   */
+  public static final int NOTIFICATION_POLICY_SYNCHRONOUS = 3;
+  /**
+   * the listeners are notified from a background thread that is woken up by each touch event
+   * instead of polling, samples published while the listeners are busy are conflated into the
+   * latest one.
+   */
+  public static final int NOTIFICATION_POLICY_HANDOFF = 4;
+  /**
+   * the listeners are never notified and no notifier runs, the state is read by the application
+   * when it needs it using {@link #readState(KnobState)} or {@link #readState(float[], int)},
+   * typically once per tick of its own update loop.
+   */
+  public static final int NOTIFICATION_POLICY_NONE = 5;
 
   /**
-   * the angle of each sector.
+   * the default minimum change of the magnitude that is notified when notifying on change only.
    */
-  public static final float SECTOR_ANGLE = 45.0f;
+  public static final float MAGNITUDE_DEFAULT_DEADBAND = 0.0f;
 
   /**
-   * maximum angle.
+   * the default minimum change of the angle in degrees that is notified when notifying on
+   * change only.
    */
-  public static final float MAX_ANGLE = 360.0f;
+  public static final float ANGLE_DEFAULT_DEADBAND = 0.0f;
 
   /**
-   * the call to onKnobMove of OnKnobMoveListener is threaded, this is the default number of
-   * milliseconds between each two successive calls.
+   * the default number of degrees the knob has to pass the boundary of its current sector by
+   * before the direction changes.
    */
-  public static final long ON_KNOB_MOVE_NOTIFICATION_DEFAULT_RATE = 50; // milliseconds
+  public static final float SECTOR_DEFAULT_HYSTERESIS = JoystickEngine.SECTOR_DEFAULT_HYSTERESIS;
+
+  /**
+   * the names of the trace sections and counters passed to the {@link JoystickTracer}.
+   */
+  public static final String TRACE_SECTION_TOUCH_EVENT = "Joystick#onTouchEvent";
+  public static final String TRACE_SECTION_MEASURE = "Joystick#onMeasure";
+  public static final String TRACE_SECTION_INIT_MEASURES = "Joystick#initMeasures";
+  public static final String TRACE_SECTION_INIT_SECTOR_BOUNDS = "Joystick#initSectorBounds";
+  public static final String TRACE_SECTION_DRAW = "Joystick#onDraw";
+  public static final String TRACE_SECTION_NOTIFY_KNOB_MOVE = "Joystick#notifyKnobMove";
+  // the magnitude in thousandths, counters are integers
+  public static final String TRACE_COUNTER_MAGNITUDE = "magnitudePerMille";
+  public static final String TRACE_COUNTER_DIRECTION = "direction";
+  // the samples published since the previous notification, when the notifier reads the state
+  public static final String TRACE_COUNTER_NOTIFIER_QUEUE_DEPTH = "notifierQueueDepth";
+
+  protected static final KnobStateSubscription[] NO_SUBSCRIPTIONS = new KnobStateSubscription[0];
 
   protected static final String ERROR_MSG_NULL_ARGUMENT = "passed parameter is null";
   protected static final String ERROR_MSG_KNOB_RADIUS = "invalid knob radius, knob radius should " +
@@ -153,8 +215,18 @@ public class Joystick extends View {
           "this ratio should be >= 0.0 and <= 1.0";
   protected static final String ERROR_MSG_OPACITY_VALUE = "invalid opacity value, opacity value should " +
           "be >= 0.0 and <= 1.0";
+  protected static final String ERROR_MSG_OPACITY_FADE_DURATION_VALUE = "invalid opacityFadeDuration, " +
+          "opacityFadeDuration value should be >= 0";
   protected static final String ERROR_MSG_ON_KNOB_MOVE_NOTIFICATION_RATE_VALUE = "invalid onKnobMoveNotificationRate, " +
           "onKnobMoveNotificationRate value should be >= 0";
+  protected static final String ERROR_MSG_NOTIFICATION_POLICY_VALUE = "invalid onKnobMoveNotificationPolicy, " +
+          "onKnobMoveNotificationPolicy value should be one of the NOTIFICATION_POLICY_* constants";
+  protected static final String ERROR_MSG_MAGNITUDE_DEADBAND_VALUE = "invalid magnitudeDeadband, " +
+          "magnitudeDeadband value should be >= 0.0 and <= 1.0";
+  protected static final String ERROR_MSG_ANGLE_DEADBAND_VALUE = "invalid angleDeadband, " +
+          "angleDeadband value should be >= 0.0 and <= 180.0";
+  protected static final String ERROR_MSG_STATE_OFFSET_VALUE = "invalid state offset, the " +
+          "array should have KnobState.FLOAT_ARRAY_SIZE floats from offset";
   protected static final String ERROR_MSG_DIMENSIONS_SET_BEFORE_LAYOUT = "the dimensions of inner " +
           "visual components of the joystick cannot be set before the dimensions of the joystick has " +
           "been calculated by laying out the joystick on the parent component, consider using 'isLaidOut' " +
@@ -174,12 +246,12 @@ public class Joystick extends View {
   protected float innerCircleRadiusToJoystickRadiusRatio;
   protected float activeKnobRadius;
   protected float idleKnobRadius;
-  protected Path sectorLeftBound[];
-  protected Path sectorRightBound[];
-  protected TransformationMatrix transformationMatrix;
-  protected TransformationMatrix detransformationMatrix;
-  protected PointF[] matrixCalibrationValuesSrc;
-  protected PointF[] matrixCalibrationValuesDst;
+  protected float sectorBoundsPoints[];
+  protected SectorClassifier sectorClassifier;
+  // the configuration the cached geometry was computed for
+  protected float sectorBoundsDimension;
+  protected float sectorBoundsInnerCircleRadiusRatio;
+  protected SectorClassifier sectorBoundsSectorClassifier;
 
   // drawing attributes
   protected boolean isLaidOut;
@@ -189,15 +261,67 @@ public class Joystick extends View {
   protected Paint sectorBoundsPaint;
   protected float idleViewOpacity;
   protected float activeViewOpacity;
+  // the opacity is applied through the paints and drawables instead of View.setAlpha, which
+  // would render every frame into an offscreen layer and composite it
+  protected long opacityFadeDuration;
+  protected long opacityFadeStartTime;
+  protected float opacityFadeStartOpacity;
+  protected float viewOpacity;
+  protected int viewAlpha;
   protected Drawable knob;
   protected boolean innerCircleEnabled;
   protected boolean isBorderCircleEnabled;
   protected boolean sectorBoundsEnabled;
-
-  // control attributes
-  protected OnKnobMoveListener onKnobMoveListener;
+  protected boolean renderCacheEnabled;
+  protected JoystickRenderCache renderCache;
+  // what the last invalidation asked to draw, to invalidate only what changed since then
+  protected boolean invalidatedIsActive;
+  protected int invalidatedDirection;
+  protected Rect invalidatedKnobBounds;
+  protected Rect knobBounds;
+  protected Rect dirtyRect;
+  protected Rect drawnKnobBounds;
+
+  // control attributes, the listeners and the notification settings are set on the UI thread
+  // and read by the notifier, on the scheduler thread for the scheduled policies
+  protected volatile OnKnobMoveListener onKnobMoveListener;
+  protected volatile OnKnobStateListener onKnobStateListener;
+  // copy on write, read by the notifier without locking
+  protected volatile KnobStateSubscription[] knobStateSubscriptions;
+  // guards the copies of knobStateSubscriptions, a view is a public monitor
+  private final Object subscriptionLock = new Object();
+  protected volatile OnKnobMoveBatchListener onKnobMoveBatchListener;
+  protected KnobSampleBatchBuffer knobSampleBatchBuffer;
   protected OnKnobMoveNotifier onKnobMoveNotifier;
-  protected long onKnobMoveNotificationRate;
+  protected KnobMoveRateAdapter knobMoveRateAdapter;
+  protected int activePointerId;
+  protected OnKnobMoveFrameNotifier onKnobMoveFrameNotifier;
+  protected OnKnobMoveSynchronousNotifier onKnobMoveSynchronousNotifier;
+  // serializes the dispatches, the notifier of the previous policy may still be dispatching on
+  // the scheduler thread while the next one dispatches on the UI thread
+  private final Object dispatchLock = new Object();
+  // guarded by dispatchLock, shared by the notifiers of the joystick so a notifier started by a
+  // policy change goes on from what the previous one delivered
+  protected KnobState notifiedKnobState;
+  protected KnobState lastNotifiedKnobState;
+  // guarded by dispatchLock, set when the knob is released and cleared by the final dispatch, so
+  // a notifier stopped by a policy change does not notify a release
+  protected boolean isReleasePending;
+  protected volatile int onKnobMoveNotificationPolicy;
+  protected volatile boolean notifyOnChangeOnly;
+  protected volatile float magnitudeDeadband;
+  protected volatile float angleDeadband;
+  protected KnobStatePublisher knobStatePublisher;
+  // null while the metrics are disabled
+  protected volatile JoystickMetrics metrics;
+  // null while tracing is disabled
+  protected volatile JoystickTracer tracer;
+  // the processing time of the last published state, until a frame draws it
+  protected long undrawnProcessedTime;
+  protected volatile long onKnobMoveNotificationRate;
+  // the input math and the knob state machine, the knob fields below mirror its state for the
+  // drawing and the publishing code
+  protected JoystickEngine engine;
   protected Vector2D touchCoordinates;
   protected Vector2D mappedTouchCoordinates;
   protected float magnitude;
@@ -233,21 +357,22 @@ public class Joystick extends View {
     innerCircleRadiusToJoystickRadiusRatio = INNER_CIRCLE_RADIUS_TO_JOYSTICK_RADIUS_DEFAULT_RATIO;
     activeKnobRadius = ACTIVE_KNOB_DEFAULT_RADIUS;
     idleKnobRadius = IDLE_KNOB_DEFAULT_RADIUS;
-    sectorLeftBound = new Path[NUMBER_OF_SECTORS];
-    sectorRightBound = new Path[NUMBER_OF_SECTORS];
-    transformationMatrix = new TransformationMatrix();
-    detransformationMatrix = new TransformationMatrix();
-    matrixCalibrationValuesSrc = new PointF[NUMBER_OF_CORNERS];
-    matrixCalibrationValuesDst = new PointF[NUMBER_OF_CORNERS];
-    for (int i = 0; i < NUMBER_OF_CORNERS; ++i) {
-      matrixCalibrationValuesSrc[i] = new PointF();
-      matrixCalibrationValuesDst[i] = new PointF();
-    }
+    sectorBoundsDimension = -1;
+    engine = new JoystickEngine();
+    initSectors(engine.getSectorClassifier());
 
     isLaidOut = false;
     innerCircleEnabled = true;
     isBorderCircleEnabled = true;
     sectorBoundsEnabled = true;
+    renderCacheEnabled = false;
+    renderCache = new JoystickRenderCache(this);
+    invalidatedIsActive = false;
+    invalidatedDirection = DIRECTION_CENTER;
+    invalidatedKnobBounds = new Rect();
+    knobBounds = new Rect();
+    dirtyRect = new Rect();
+    drawnKnobBounds = new Rect();
     innerCirclePaint = new Paint();
     innerCirclePaint.setStyle(Paint.Style.STROKE);
     innerCirclePaint.setStrokeWidth(5);
@@ -270,12 +395,35 @@ public class Joystick extends View {
 
     idleViewOpacity = IDLE_VIEW_DEFAULT_OPACITY;
     activeViewOpacity = ACTIVE_VIEW_DEFAULT_OPACITY;
-    this.setAlpha(idleViewOpacity);
+    opacityFadeDuration = OPACITY_FADE_DEFAULT_DURATION;
+    opacityFadeStartTime = 0;
+    opacityFadeStartOpacity = idleViewOpacity;
+    viewOpacity = idleViewOpacity;
+    viewAlpha = toAlpha(idleViewOpacity);
 
-    knob = context.getResources().getDrawable(R.drawable.shape_knob);
-    super.setBackground(context.getResources().getDrawable(R.drawable.shape_joystick_background));
+    knob = context.getResources().getDrawable(R.drawable.shape_knob).mutate();
+    super.setBackground(context.getResources().getDrawable(R.drawable.shape_joystick_background)
+            .mutate());
 
     onKnobMoveNotifier = new OnKnobMoveNotifier();
+    knobMoveRateAdapter = new KnobMoveRateAdapter();
+    activePointerId = MotionEvent.INVALID_POINTER_ID;
+    onKnobMoveFrameNotifier = new OnKnobMoveFrameNotifier();
+    onKnobMoveSynchronousNotifier = new OnKnobMoveSynchronousNotifier();
+    notifiedKnobState = new KnobState();
+    lastNotifiedKnobState = new KnobState();
+    lastNotifiedKnobState.sequence = -1;
+    isReleasePending = false;
+    onKnobMoveNotificationPolicy = NOTIFICATION_POLICY_RATE;
+    notifyOnChangeOnly = false;
+    magnitudeDeadband = MAGNITUDE_DEFAULT_DEADBAND;
+    angleDeadband = ANGLE_DEFAULT_DEADBAND;
+    knobStatePublisher = new KnobStatePublisher();
+    metrics = null;
+    tracer = null;
+    undrawnProcessedTime = 0;
+    knobStateSubscriptions = NO_SUBSCRIPTIONS;
+    knobSampleBatchBuffer = new KnobSampleBatchBuffer(KnobSampleBatch.DEFAULT_CAPACITY);
     onKnobMoveNotificationRate = ON_KNOB_MOVE_NOTIFICATION_DEFAULT_RATE;
     touchCoordinates = new Vector2D(joystickCenterX, joystickCenterY);
     mappedTouchCoordinates = new Vector2D(0, 0);
@@ -285,185 +433,696 @@ public class Joystick extends View {
   }
 
   protected void initMeasures() {
-    joystickRadius = dimension / 2;
-    joystickCenterX = dimension / 2;
-    joystickCenterY = dimension / 2;
-    innerCircleRadius = innerCircleRadiusToJoystickRadiusRatio * joystickRadius;
-    touchCoordinates.set(joystickCenterX, joystickCenterY);
-    mappedTouchCoordinates.set(0, 0);
-
-    if (idleKnobRadius > joystickRadius || activeKnobRadius > joystickRadius) {
-      idleKnobRadius = IDLE_KNOB_DEFAULT_RADIUS;
-      activeKnobRadius = ACTIVE_KNOB_DEFAULT_RADIUS;
+    JoystickTracer tracer = this.tracer;
+    if (tracer != null)
+      tracer.beginSection(TRACE_SECTION_INIT_MEASURES);
+    try {
+      joystickRadius = dimension / 2;
+      joystickCenterX = dimension / 2;
+      joystickCenterY = dimension / 2;
+      innerCircleRadius = innerCircleRadiusToJoystickRadiusRatio * joystickRadius;
+
+      if (idleKnobRadius > joystickRadius || activeKnobRadius > joystickRadius) {
+        idleKnobRadius = IDLE_KNOB_DEFAULT_RADIUS;
+        activeKnobRadius = ACTIVE_KNOB_DEFAULT_RADIUS;
+      }
+
+      // calibrates the mapping to [-1, 1] and returns the knob to the center
+      engine.setDimension(dimension);
+      syncKnob();
+      renderCache.invalidate();
+    } finally {
+      if (tracer != null)
+        tracer.endSection();
+    }
+  }
+
+  /**
+   * recomputes the measures and the sector bounds only if the configuration they depend on
+   * changed since they were last computed, layout passes with the same dimension are free.
+   */
+  protected void updateGeometry() {
+    if (dimension != engine.getDimension())
+      initMeasures();
+
+    if (dimension != sectorBoundsDimension ||
+            innerCircleRadiusToJoystickRadiusRatio != sectorBoundsInnerCircleRadiusRatio ||
+            sectorClassifier != sectorBoundsSectorClassifier)
+      initSectorBounds();
+  }
+
+  /**
+   * switches to the passed sector configuration and allocates the sector bounds for it.
+   */
+  protected void initSectors(SectorClassifier sectorClassifier) {
+    // the engine resets the direction and the sectorHysteresis if they do not fit anymore
+    engine.setSectorClassifier(sectorClassifier);
+    this.sectorClassifier = sectorClassifier;
+    sectorBoundsPoints = new float[sectorClassifier.getNumberOfSectors() * 4];
+    direction = engine.getDirection();
+  }
+
+  protected void initSectorBounds() {
+    JoystickTracer tracer = this.tracer;
+    if (tracer != null)
+      tracer.beginSection(TRACE_SECTION_INIT_SECTOR_BOUNDS);
+    try {
+      // boundary i is the left bound of sector i and the right bound of sector i - 1, stored as
+      // one line from its start on the inner circle to its end on the border circle, ready for
+      // Canvas.drawLines
+      int numberOfSectors = sectorClassifier.getNumberOfSectors();
+      for (int i = 0, j = 0; i < numberOfSectors; ++i, j += 4) {
+        float boundaryX = sectorClassifier.getBoundaryX(i);
+        float boundaryY = sectorClassifier.getBoundaryY(i);
+        sectorBoundsPoints[j] = boundaryX * innerCircleRadiusToJoystickRadiusRatio;
+        sectorBoundsPoints[j + 1] = boundaryY * innerCircleRadiusToJoystickRadiusRatio;
+        sectorBoundsPoints[j + 2] = boundaryX;
+        sectorBoundsPoints[j + 3] = boundaryY;
+      }
+
+      engine.unmapPoints(sectorBoundsPoints, 0, sectorBoundsPoints, 0, 2 * numberOfSectors);
+
+      sectorBoundsDimension = dimension;
+      sectorBoundsInnerCircleRadiusRatio = innerCircleRadiusToJoystickRadiusRatio;
+      sectorBoundsSectorClassifier = sectorClassifier;
+      renderCache.invalidate();
+    } finally {
+      if (tracer != null)
+        tracer.endSection();
     }
+  }
 
-    // upper left corner
-    matrixCalibrationValuesSrc[0].set(0, 0);
-    matrixCalibrationValuesDst[0].set(MAPPED_MIN_X_COORD, MAPPED_MAX_Y_COORD);
+  @Override
+  public boolean onTouchEvent(@NonNull MotionEvent event) {
+    JoystickTracer tracer = this.tracer;
+    if (tracer != null)
+      tracer.beginSection(TRACE_SECTION_TOUCH_EVENT);
+    try {
+      switch (event.getActionMasked()) {
+        case MotionEvent.ACTION_DOWN: {
+          requestLowLatencyDispatch(this, event, onKnobMoveNotificationPolicy);
+          pressKnob(event.getPointerId(0), event.getX(), event.getY(), event.getEventTime());
+          startKnobMoveNotifier();
+          break;
+        }
+        case MotionEvent.ACTION_MOVE: {
+          // other fingers may be down on the view, only the first one moves the knob
+          int pointerIndex = event.findPointerIndex(activePointerId);
+          if (pointerIndex >= 0) {
+            moveKnob(event, pointerIndex, 0, 0);
+            handOffKnobState();
+          }
+          break;
+        }
+        case MotionEvent.ACTION_POINTER_UP: {
+          if (event.getPointerId(event.getActionIndex()) == activePointerId) {
+            releaseKnob(event.getEventTime());
+            stopKnobMoveNotifier();
+          }
+          break;
+        }
+        case MotionEvent.ACTION_UP:
+        case MotionEvent.ACTION_CANCEL: {
+          if (isActive) {
+            releaseKnob(event.getEventTime());
+            stopKnobMoveNotifier();
+          }
+          break;
+        }
+      }
+    } finally {
+      if (tracer != null)
+        tracer.endSection();
+    }
 
-    // bottom left corner
-    matrixCalibrationValuesSrc[1].set(0, dimension);
-    matrixCalibrationValuesDst[1].set(MAPPED_MIN_X_COORD, MAPPED_MIN_Y_COORD);
+    return true;
+  }
 
-    // upper right corner
-    matrixCalibrationValuesSrc[2].set(dimension, 0);
-    matrixCalibrationValuesDst[2].set(MAPPED_MAX_X_COORD, MAPPED_MAX_Y_COORD);
+  @Override
+  protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    // the knob may have been released while detached, without any frame drawn
+    invalidate();
+  }
 
-    // bottom right corner
-    matrixCalibrationValuesSrc[3].set(dimension, dimension);
-    matrixCalibrationValuesDst[3].set(MAPPED_MAX_X_COORD, MAPPED_MIN_Y_COORD);
+  @Override
+  protected void onDetachedFromWindow() {
+    cancelKnob();
+    // the cached layers are rendered again if the joystick is attached again
+    renderCache.invalidate();
+    super.onDetachedFromWindow();
+  }
 
-    boolean transformationMatrixSet = transformationMatrix.setPolyToPoly(
-            matrixCalibrationValuesSrc, matrixCalibrationValuesDst);
+  @Override
+  protected void onWindowVisibilityChanged(int visibility) {
+    super.onWindowVisibilityChanged(visibility);
+    if (visibility != View.VISIBLE)
+      cancelKnob();
+  }
 
-    boolean detransformationMatrixSet = detransformationMatrix.setPolyToPoly(
-            matrixCalibrationValuesDst, matrixCalibrationValuesSrc);
+  /**
+   * releases the knob as if the finger was lifted and stops notifying, used when the gesture
+   * can not end normally (the event stream is cancelled, the joystick is detached or hidden).
+   */
+  protected void cancelKnob() {
+    if (isActive)
+      releaseKnob(SystemClock.uptimeMillis());
+    stopKnobMoveNotifier();
+  }
 
-    // safety check
-    if (!transformationMatrixSet || !detransformationMatrixSet)
-      throw new RuntimeException("error in calibrating the transformation matrices");
+  /**
+   * starts tracking the passed pointer, (x, y) is the touch point in view coordinates.<br>
+   * pressKnob, moveKnob and releaseKnob only update and publish the knob state, notifying the
+   * listeners is left to the caller so a {@link JoystickLayout} can drive several joysticks
+   * from one notifier.
+   */
+  protected void pressKnob(int pointerId, float x, float y, long eventTime) {
+    // a release that was not notified yet is superseded by the new gesture
+    synchronized (dispatchLock) {
+      isReleasePending = false;
+    }
+    engine.press(x, y, eventTime);
+    syncKnob();
+    publishKnobState(eventTime);
+    startOpacityFade(eventTime);
+    activePointerId = pointerId;
+    isActive = true;
+    invalidateKnob();
   }
 
-  protected void initSectorBounds() {
-    double currentAngle = MAX_ANGLE - (SECTOR_ANGLE * 0.5f);
-    PointF mappedLeftBoundStart = new PointF();
-    PointF mappedLeftBoundEnd = new PointF();
-    PointF mappedRightBoundStart = new PointF();
-    PointF mappedRightBoundEnd = new PointF();
-
-    for (int currentSectorIndex = 0; currentSectorIndex < NUMBER_OF_SECTORS; ++currentSectorIndex) {
-      sectorLeftBound[currentSectorIndex] = new Path();
-      sectorRightBound[currentSectorIndex] = new Path();
-
-      mappedLeftBoundStart.x = (float) (Math.cos(Math.toRadians(currentAngle)) *
-              innerCircleRadiusToJoystickRadiusRatio);
-      mappedLeftBoundStart.y = (float) (Math.sin(Math.toRadians(currentAngle)) *
-              innerCircleRadiusToJoystickRadiusRatio);
-      mappedLeftBoundEnd.x = (float) Math.cos(Math.toRadians(currentAngle));
-      mappedLeftBoundEnd.y = (float) Math.sin(Math.toRadians(currentAngle));
-
-      currentAngle += SECTOR_ANGLE;
-      if (currentAngle > MAX_ANGLE)
-        currentAngle -= MAX_ANGLE;
-
-      mappedRightBoundStart.x = (float) (Math.cos(Math.toRadians(currentAngle)) *
-              innerCircleRadiusToJoystickRadiusRatio);
-      mappedRightBoundStart.y = (float) (Math.sin(Math.toRadians(currentAngle)) *
-              innerCircleRadiusToJoystickRadiusRatio);
-      mappedRightBoundEnd.x = (float) Math.cos(Math.toRadians(currentAngle));
-      mappedRightBoundEnd.y = (float) Math.sin(Math.toRadians(currentAngle));
-
-      PointF realLeftBoundStart = detransformationMatrix.mapPoint(mappedLeftBoundStart);
-      PointF realLeftBoundEnd = detransformationMatrix.mapPoint(mappedLeftBoundEnd);
-
-      PointF realRightBoundStart = detransformationMatrix.mapPoint(mappedRightBoundStart);
-      PointF realRightBoundEnd = detransformationMatrix.mapPoint(mappedRightBoundEnd);
-
-      sectorLeftBound[currentSectorIndex].moveTo(realLeftBoundStart.x, realLeftBoundStart.y);
-      sectorLeftBound[currentSectorIndex].lineTo(realLeftBoundEnd.x, realLeftBoundEnd.y);
-
-      sectorRightBound[currentSectorIndex].moveTo(realRightBoundStart.x, realRightBoundStart.y);
-      sectorRightBound[currentSectorIndex].lineTo(realRightBoundEnd.x, realRightBoundEnd.y);
+  /**
+   * moves the knob to the pointer at pointerIndex of the passed event, offset by (offsetX,
+   * offsetY) to convert the event coordinates to view coordinates.
+   */
+  protected void moveKnob(MotionEvent event, int pointerIndex, float offsetX, float offsetY) {
+    // the samples batched by the system since the previous event, oldest first, always reach
+    // the engine so the knob state doesn't depend on which listeners are set
+    boolean isCollectingSamples = isCollectingSamples();
+    for (int i = 0, historySize = event.getHistorySize(); i < historySize; ++i) {
+      engine.move(event.getHistoricalX(pointerIndex, i) + offsetX,
+              event.getHistoricalY(pointerIndex, i) + offsetY, event.getHistoricalEventTime(i));
+      if (isCollectingSamples)
+        knobSampleBatchBuffer.add(engine.getMagnitude(), engine.getAngle(), engine.getDirection(),
+                engine.getMappedX(), engine.getMappedY(), engine.getEventTime());
     }
+
+    engine.move(event.getX(pointerIndex) + offsetX, event.getY(pointerIndex) + offsetY,
+            event.getEventTime());
+    syncKnob();
+    publishKnobState(event.getEventTime());
+    invalidateKnob();
   }
 
-  @Override
-  public boolean onTouchEvent(@NonNull MotionEvent event) {
-    touchCoordinates.set(event.getX(), event.getY());
-    transformationMatrix.mapPoint(touchCoordinates, mappedTouchCoordinates);
-    magnitude = mappedTouchCoordinates.length();
-    angle = (float) mappedTouchCoordinates.angle();
-    if (magnitude > innerCircleRadiusToJoystickRadiusRatio) {
-      direction = ((int) (((angle + (SECTOR_ANGLE / 2)) * NUMBER_OF_SECTORS) / MAX_ANGLE)) %
-              NUMBER_OF_SECTORS;
-    } else direction = DIRECTION_CENTER;
-
-    if (magnitude > 1.0) {
-      mappedTouchCoordinates.set((float) Math.cos(Math.toRadians(angle)),
-              (float) Math.sin(Math.toRadians(angle)));
-      detransformationMatrix.mapPoint(mappedTouchCoordinates, touchCoordinates);
+  /**
+   * stops tracking the pointer and returns the knob to the center.
+   */
+  protected void releaseKnob(long eventTime) {
+    engine.release(eventTime);
+    syncKnob();
+    startOpacityFade(eventTime);
+    activePointerId = MotionEvent.INVALID_POINTER_ID;
+    isActive = false;
+    publishKnobState(eventTime);
+    synchronized (dispatchLock) {
+      isReleasePending = true;
     }
+    invalidateKnob();
+  }
 
-    switch (event.getAction()) {
-      case MotionEvent.ACTION_DOWN: {
-        if (onKnobMoveNotifier.isAlive()) {
-          onKnobMoveNotifier.interrupt();
-          onKnobMoveNotifier = new OnKnobMoveNotifier();
-        }
+  public boolean isActive() {
+    return isActive;
+  }
+
+  /**
+   * copies the current knob state into the passed snapshot, safe to call from any thread and
+   * allocation free, so it can be polled by a game loop instead of registering listeners.
+   *
+   * @return the sequence of the copied state, it changes only when a new touch sample is
+   * processed.
+   */
+  public long readState(@NonNull KnobState knobState) {
+    if (knobState == null)
+      throw new NullPointerException(ERROR_MSG_NULL_ARGUMENT);
+    return knobStatePublisher.read(knobState);
+  }
+
+  /**
+   * copies the current knob state into state from offset, at the *_INDEX positions of
+   * {@link KnobState}, safe to call from any thread and allocation free.
+   *
+   * @return the sequence of the copied state, it changes only when a new touch sample is
+   * processed.
+   */
+  public long readState(@NonNull float[] state, int offset) {
+    if (state == null)
+      throw new NullPointerException(ERROR_MSG_NULL_ARGUMENT);
+    if (offset < 0 || offset > state.length - KnobState.FLOAT_ARRAY_SIZE)
+      throw new ArrayIndexOutOfBoundsException(ERROR_MSG_STATE_OFFSET_VALUE +
+              ", passed value = " + offset + ", array length = " + state.length);
+    return knobStatePublisher.read(state, offset);
+  }
+
+  /**
+   * @return the id of the pointer moving the knob, or MotionEvent.INVALID_POINTER_ID if the
+   * joystick is not touched.
+   */
+  public int getActivePointerId() {
+    return activePointerId;
+  }
+
+  /**
+   * starts fading from the opacity currently drawn, must be called before isActive changes.
+   */
+  protected void startOpacityFade(long eventTime) {
+    opacityFadeStartOpacity = viewOpacity;
+    opacityFadeStartTime = eventTime;
+  }
 
-        onKnobMoveNotifier.start();
-        isActive = true;
-        this.setAlpha(activeViewOpacity);
-        break;
+  /**
+   * the opacity to draw at the passed uptimeMillis, moving linearly from the opacity drawn when
+   * the fade started to the opacity of the current state.
+   */
+  protected float computeViewOpacity(long time) {
+    float targetOpacity = isActive ? activeViewOpacity : idleViewOpacity;
+    long elapsedTime = time - opacityFadeStartTime;
+    if (opacityFadeDuration <= 0 || elapsedTime >= opacityFadeDuration)
+      return targetOpacity;
+    if (elapsedTime <= 0)
+      return opacityFadeStartOpacity;
+
+    return opacityFadeStartOpacity +
+            (targetOpacity - opacityFadeStartOpacity) * elapsedTime / opacityFadeDuration;
+  }
+
+  protected static int toAlpha(float opacity) {
+    return (int) (opacity * 255 + 0.5f);
+  }
+
+  /**
+   * invalidates only what changed on screen since the last call: nothing if the knob stays on
+   * the same pixels in the same sector, the old and new knob bounds plus the old and new
+   * highlighted sectors if only those changed, and the whole view if the circles change.
+   */
+  protected void invalidateKnob() {
+    computeKnobBounds(knobBounds, isActive ? activeKnobRadius : idleKnobRadius);
+
+    if (isActive != invalidatedIsActive ||
+            (direction == DIRECTION_CENTER) != (invalidatedDirection == DIRECTION_CENTER)) {
+      this.invalidate();
+    } else if (direction != invalidatedDirection || !knobBounds.equals(invalidatedKnobBounds)) {
+      dirtyRect.set(knobBounds);
+      dirtyRect.union(invalidatedKnobBounds);
+      if (direction != invalidatedDirection && sectorBoundsEnabled) {
+        unionSectorBounds(dirtyRect, direction);
+        unionSectorBounds(dirtyRect, invalidatedDirection);
       }
-      case MotionEvent.ACTION_UP: {
-        onKnobMoveNotifier.interrupt();
-        onKnobMoveNotifier = new OnKnobMoveNotifier();
-        touchCoordinates.set(joystickCenterX, joystickCenterY);
-        mappedTouchCoordinates.set(0, 0);
-        magnitude = 0.0f;
-        angle = 0.0f;
-        direction = DIRECTION_CENTER;
-        isActive = false;
-        this.setAlpha(idleViewOpacity);
-        break;
+
+      // anti-aliased edges may touch the pixels around the bounds
+      dirtyRect.inset(-1, -1);
+      this.invalidate(dirtyRect.left, dirtyRect.top, dirtyRect.right, dirtyRect.bottom);
+    }
+
+    invalidatedIsActive = isActive;
+    invalidatedDirection = direction;
+    invalidatedKnobBounds.set(knobBounds);
+  }
+
+  /**
+   * sets the passed rect to the bounds of the knob drawn around the touch coordinates. the
+   * bounds are truncated, so depending on the fractions of the coordinates they are one pixel
+   * narrower or wider than the knob diameter.
+   */
+  protected void computeKnobBounds(Rect bounds, float knobRadius) {
+    bounds.set((int) (touchCoordinates.x - knobRadius),
+            (int) (touchCoordinates.y - knobRadius),
+            (int) (touchCoordinates.x + knobRadius),
+            (int) (touchCoordinates.y + knobRadius));
+  }
+
+  /**
+   * extends the passed rect to cover the two drawn bounds of the passed sector.
+   */
+  protected void unionSectorBounds(Rect rect, int sector) {
+    unionSectorBound(rect, 4 * sector);
+    unionSectorBound(rect, 4 * ((sector + 1) % sectorClassifier.getNumberOfSectors()));
+  }
+
+  /**
+   * extends the passed rect to cover the stroked line at boundIndex in sectorBoundsPoints.
+   */
+  protected void unionSectorBound(Rect rect, int boundIndex) {
+    float halfStrokeWidth = sectorBoundsPaint.getStrokeWidth() / 2;
+    for (int i = boundIndex; i < boundIndex + 4; i += 2) {
+      float x = sectorBoundsPoints[i];
+      float y = sectorBoundsPoints[i + 1];
+      rect.union((int) Math.floor(x - halfStrokeWidth), (int) Math.floor(y - halfStrokeWidth),
+              (int) Math.ceil(x + halfStrokeWidth), (int) Math.ceil(y + halfStrokeWidth));
+    }
+  }
+
+  /**
+   * copies the knob state (coordinates, magnitude, angle and direction) computed by the engine
+   * into the fields read by the drawing and the publishing code.
+   */
+  protected void syncKnob() {
+    touchCoordinates.set(engine.getTouchX(), engine.getTouchY());
+    mappedTouchCoordinates.set(engine.getMappedX(), engine.getMappedY());
+    magnitude = engine.getMagnitude();
+    angle = engine.getAngle();
+    direction = engine.getDirection();
+  }
+
+  protected static boolean isNotificationPolicy(int notificationPolicy) {
+    return notificationPolicy >= NOTIFICATION_POLICY_RATE &&
+            notificationPolicy <= NOTIFICATION_POLICY_NONE;
+  }
+
+  /**
+   * starts notifying the listeners of a new gesture according to the current notification
+   * policy, the first state of the gesture is always delivered.
+   */
+  protected void startKnobMoveNotifier() {
+    synchronized (dispatchLock) {
+      lastNotifiedKnobState.sequence = -1;
+    }
+    switchKnobMoveNotifier();
+  }
+
+  /**
+   * replaces the running notifier with the one of the current notification policy in the
+   * middle of a gesture. the stopped notifier delivers nothing since the knob is not released,
+   * the new one goes on from the last delivered state.
+   */
+  protected void switchKnobMoveNotifier() {
+    stopKnobMoveNotifier();
+    if (onKnobMoveNotificationPolicy == NOTIFICATION_POLICY_FRAME) {
+      onKnobMoveFrameNotifier.start();
+    } else if (onKnobMoveNotificationPolicy == NOTIFICATION_POLICY_SYNCHRONOUS) {
+      onKnobMoveSynchronousNotifier.start();
+    } else if (onKnobMoveNotificationPolicy != NOTIFICATION_POLICY_NONE) {
+      KnobMoveScheduler.getInstance().schedule(onKnobMoveNotifier);
+    }
+  }
+
+  /**
+   * stops notifying the listeners, whatever the notification policy used to start it. if the
+   * knob was released the stopped notifier delivers the released state, on the scheduler thread
+   * for the scheduled policies.
+   */
+  protected void stopKnobMoveNotifier() {
+    onKnobMoveFrameNotifier.stop();
+    onKnobMoveSynchronousNotifier.stop();
+    KnobMoveScheduler.getInstance().cancel(onKnobMoveNotifier);
+  }
+
+  protected boolean isKnobMoveNotifierRunning() {
+    return onKnobMoveFrameNotifier.isRunning || onKnobMoveSynchronousNotifier.isRunning ||
+            KnobMoveScheduler.getInstance().isScheduled(onKnobMoveNotifier);
+  }
+
+  /**
+   * hands the state just published by a touch event to the notifier if it does not poll for it.
+   * <br>
+   * a synchronous dispatch waits for a run of the scheduled notifier still in flight after a
+   * policy change, the dispatches of a joystick are serialized.
+   */
+  protected void handOffKnobState() {
+    if (onKnobMoveSynchronousNotifier.isRunning) {
+      onKnobMoveSynchronousNotifier.dispatch();
+    } else if (onKnobMoveNotificationPolicy == NOTIFICATION_POLICY_HANDOFF ||
+            knobMoveRateAdapter.isBackedOff()) {
+      KnobMoveScheduler.getInstance().runNow(onKnobMoveNotifier);
+    }
+  }
+
+  /**
+   * asks the system to deliver the touch events of the current gesture as soon as they arrive
+   * instead of batching them once per frame, for the policies that notify each event.
+   */
+  protected static void requestLowLatencyDispatch(View view, MotionEvent event,
+                                                  int notificationPolicy) {
+    if ((notificationPolicy == NOTIFICATION_POLICY_SYNCHRONOUS ||
+            notificationPolicy == NOTIFICATION_POLICY_HANDOFF) &&
+            Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP)
+      view.requestUnbufferedDispatch(event);
+  }
+
+  /**
+   * publishes the current knob state to the notifier thread as one consistent snapshot.
+   */
+  protected void publishKnobState(long eventTime) {
+    JoystickMetrics metrics = this.metrics;
+    long processedTime = 0;
+    if (metrics != null) {
+      processedTime = System.nanoTime();
+      metrics.recordProcessed(eventTime, processedTime);
+      undrawnProcessedTime = processedTime;
+    }
+
+    knobStatePublisher.publish(magnitude, angle, direction,
+            mappedTouchCoordinates.x, mappedTouchCoordinates.y, eventTime, processedTime);
+    JoystickTracer tracer = this.tracer;
+    if (tracer != null) {
+      tracer.setCounter(TRACE_COUNTER_MAGNITUDE, Math.round(magnitude * 1000));
+      tracer.setCounter(TRACE_COUNTER_DIRECTION, direction);
+    }
+    if (isCollectingSamples())
+      knobSampleBatchBuffer.add(magnitude, angle, direction,
+              mappedTouchCoordinates.x, mappedTouchCoordinates.y, eventTime);
+  }
+
+  /**
+   * calls the registered listeners with the passed snapshot, called on the notifier thread.
+   */
+  protected void notifyKnobMove(KnobState knobState) {
+    JoystickTracer tracer = this.tracer;
+    if (tracer != null)
+      tracer.beginSection(TRACE_SECTION_NOTIFY_KNOB_MOVE);
+    try {
+      JoystickMetrics metrics = this.metrics;
+      if (metrics != null && knobState.processedTime != 0)
+        metrics.recordDelivered(knobState.processedTime, System.nanoTime());
+
+      OnKnobMoveListener onKnobMoveListener = this.onKnobMoveListener;
+      if (onKnobMoveListener != null)
+        onKnobMoveListener.onKnobMove(knobState.magnitude, knobState.angle, knobState.direction);
+
+      OnKnobStateListener onKnobStateListener = this.onKnobStateListener;
+      if (onKnobStateListener != null)
+        onKnobStateListener.onKnobState(knobState);
+
+      for (KnobStateSubscription knobStateSubscription : knobStateSubscriptions)
+        knobStateSubscription.offer(knobState);
+    } finally {
+      if (tracer != null)
+        tracer.endSection();
+    }
+  }
+
+  protected boolean hasKnobMoveListeners() {
+    return onKnobMoveListener != null || onKnobStateListener != null ||
+            onKnobMoveBatchListener != null || knobStateSubscriptions.length > 0;
+  }
+
+  /**
+   * reads the published state into knobState and notifies the listeners with it if needed.<br>
+   * a periodic notification is always delivered unless notifying on change only, a final
+   * notification (when the notifier stops) is delivered only for a released knob whose state
+   * changed, so the released state reaches the listeners exactly once and a notifier stopped
+   * by a policy change delivers nothing.<br>
+   * the dispatches of a joystick are serialized, whatever thread its notifiers run on.
+   *
+   * @param lastNotifiedKnobState the last state delivered by the calling notifier, updated by
+   *                              this method, a negative sequence means nothing was delivered.
+   */
+  protected void dispatchKnobMove(KnobState knobState, KnobState lastNotifiedKnobState,
+                                  boolean isFinal) {
+    synchronized (dispatchLock) {
+      if (isFinal) {
+        if (!isReleasePending)
+          return;
+        isReleasePending = false;
       }
+
+      dispatchKnobMoveBatch();
+      knobStatePublisher.read(knobState);
+      JoystickTracer tracer = this.tracer;
+      if (tracer != null && lastNotifiedKnobState.sequence >= 0)
+        tracer.setCounter(TRACE_COUNTER_NOTIFIER_QUEUE_DEPTH,
+                knobState.sequence - lastNotifiedKnobState.sequence);
+      if ((isFinal || notifyOnChangeOnly) &&
+              !isKnobStateChanged(lastNotifiedKnobState, knobState))
+        return;
+
+      JoystickMetrics metrics = this.metrics;
+      if (metrics != null && lastNotifiedKnobState.sequence >= 0)
+        metrics.recordDropped(knobState.sequence - lastNotifiedKnobState.sequence - 1);
+      lastNotifiedKnobState.set(knobState);
+      notifyKnobMove(knobState);
     }
+  }
 
-    this.invalidate();
-    return true;
+  /**
+   * dispatches the published state with the states shared by the notifiers of the joystick.
+   */
+  protected void dispatchKnobMove(boolean isFinal) {
+    synchronized (dispatchLock) {
+      if (hasKnobMoveListeners())
+        dispatchKnobMove(notifiedKnobState, lastNotifiedKnobState, isFinal);
+    }
+  }
+
+  /**
+   * @return true if the processed samples are collected for the batch listener, which is never
+   * delivered under {@link #NOTIFICATION_POLICY_NONE}.
+   */
+  protected boolean isCollectingSamples() {
+    return onKnobMoveBatchListener != null &&
+            onKnobMoveNotificationPolicy != NOTIFICATION_POLICY_NONE;
+  }
+
+  /**
+   * delivers the samples processed since the previous call to the batch listener, if any.
+   */
+  protected void dispatchKnobMoveBatch() {
+    OnKnobMoveBatchListener onKnobMoveBatchListener = this.onKnobMoveBatchListener;
+    if (onKnobMoveBatchListener == null)
+      return;
+
+    KnobSampleBatch knobSampleBatch = knobSampleBatchBuffer.swap();
+    JoystickMetrics metrics = this.metrics;
+    if (metrics != null)
+      metrics.recordDropped(knobSampleBatch.droppedCount);
+    if (knobSampleBatch.size > 0 || knobSampleBatch.droppedCount > 0)
+      onKnobMoveBatchListener.onKnobMoveBatch(knobSampleBatch);
+  }
+
+  /**
+   * @return true if knobState should be notified after lastNotifiedKnobState, when notifying on
+   * change only this means the direction changed or the magnitude or the angle moved beyond
+   * their deadbands, otherwise it means a new touch sample was published.
+   */
+  protected boolean isKnobStateChanged(KnobState lastNotifiedKnobState, KnobState knobState) {
+    return isKnobStateChanged(lastNotifiedKnobState, knobState, notifyOnChangeOnly,
+            magnitudeDeadband, angleDeadband);
+  }
+
+  /**
+   * the change filter of {@link #isKnobStateChanged(KnobState, KnobState)} with the passed
+   * settings, a release to magnitude 0 is always a change even within the magnitude deadband.
+   */
+  protected static boolean isKnobStateChanged(KnobState lastNotifiedKnobState, KnobState knobState,
+                                              boolean notifyOnChangeOnly, float magnitudeDeadband,
+                                              float angleDeadband) {
+    if (lastNotifiedKnobState.sequence < 0)
+      return true;
+
+    if (!notifyOnChangeOnly)
+      return knobState.sequence != lastNotifiedKnobState.sequence;
+
+    if (knobState.direction != lastNotifiedKnobState.direction)
+      return true;
+
+    float magnitudeChange = Math.abs(knobState.magnitude - lastNotifiedKnobState.magnitude);
+    if (magnitudeChange > magnitudeDeadband ||
+            (magnitudeChange > 0 && knobState.magnitude == 0))
+      return true;
+
+    float angleChange = Math.abs(knobState.angle - lastNotifiedKnobState.angle);
+    if (angleChange > MAX_ANGLE / 2)
+      angleChange = MAX_ANGLE - angleChange;
+    return angleChange > angleDeadband;
   }
 
   @Override
-  protected void onDraw(Canvas canvas) {
-    if (isActive) {
-      knob.setBounds((int) (touchCoordinates.x - activeKnobRadius),
-              (int) (touchCoordinates.y - activeKnobRadius),
-              (int) (touchCoordinates.x + activeKnobRadius),
-              (int) (touchCoordinates.y + activeKnobRadius));
-
-      if (direction == DIRECTION_CENTER) {
-        if (innerCircleEnabled) {
-          canvas.drawCircle(joystickCenterX,
-                  joystickCenterY,
-                  innerCircleRadius,
-                  neutralInnerCirclePaint);
-        }
+  public void draw(Canvas canvas) {
+    // the background is drawn by super.draw before onDraw, so the opacity is applied here
+    viewOpacity = computeViewOpacity(SystemClock.uptimeMillis());
+    viewAlpha = toAlpha(viewOpacity);
+    Drawable background = getBackground();
+    if (background != null)
+      background.setAlpha(viewAlpha);
+
+    super.draw(canvas);
+
+    JoystickMetrics metrics = this.metrics;
+    if (metrics != null && undrawnProcessedTime != 0) {
+      metrics.recordDrawn(undrawnProcessedTime, System.nanoTime());
+      undrawnProcessedTime = 0;
+    }
 
-        if (isBorderCircleEnabled) {
-          canvas.drawCircle(joystickCenterX,
-                  joystickCenterY,
-                  joystickRadius - 1,
-                  neutralBorderCirclePaint);
+    if (viewOpacity != (isActive ? activeViewOpacity : idleViewOpacity))
+      this.postInvalidateOnAnimation();
+  }
+
+  /**
+   * the joystick applies its opacity to each paint and drawable itself, so its drawing never
+   * needs an offscreen layer.
+   */
+  @Override
+  public boolean hasOverlappingRendering() {
+    return false;
+  }
+
+  @Override
+  protected void onDraw(Canvas canvas) {
+    JoystickTracer tracer = this.tracer;
+    if (tracer != null)
+      tracer.beginSection(TRACE_SECTION_DRAW);
+    try {
+      if (renderCacheEnabled && renderCache.draw(canvas, viewAlpha))
+        return;
+
+      knob.setAlpha(viewAlpha);
+
+      if (isActive) {
+        computeKnobBounds(drawnKnobBounds, activeKnobRadius);
+        knob.setBounds(drawnKnobBounds);
+
+        if (direction == DIRECTION_CENTER) {
+          if (innerCircleEnabled)
+            drawCircle(canvas, innerCircleRadius, neutralInnerCirclePaint);
+
+          if (isBorderCircleEnabled)
+            drawCircle(canvas, joystickRadius - 1, neutralBorderCirclePaint);
+        } else {
+          if (innerCircleEnabled)
+            drawCircle(canvas, innerCircleRadius, innerCirclePaint);
+
+          if (sectorBoundsEnabled) {
+            int alpha = sectorBoundsPaint.getAlpha();
+            sectorBoundsPaint.setAlpha(alpha * viewAlpha / 255);
+            canvas.drawLines(sectorBoundsPoints, 4 * direction, 4, sectorBoundsPaint);
+            canvas.drawLines(sectorBoundsPoints,
+                    4 * ((direction + 1) % sectorClassifier.getNumberOfSectors()), 4,
+                    sectorBoundsPaint);
+            sectorBoundsPaint.setAlpha(alpha);
+          }
         }
       } else {
-        if (innerCircleEnabled) {
-          canvas.drawCircle(joystickCenterX,
-                  joystickCenterY,
-                  innerCircleRadius,
-                  innerCirclePaint);
-        }
+        computeKnobBounds(drawnKnobBounds, idleKnobRadius);
+        knob.setBounds(drawnKnobBounds);
 
-        if (sectorBoundsEnabled) {
-          canvas.drawPath(sectorLeftBound[direction], sectorBoundsPaint);
-          canvas.drawPath(sectorRightBound[direction], sectorBoundsPaint);
-        }
-      }
-    } else {
-      knob.setBounds((int) (touchCoordinates.x - idleKnobRadius),
-              (int) (touchCoordinates.y - idleKnobRadius),
-              (int) (touchCoordinates.x + idleKnobRadius),
-              (int) (touchCoordinates.y + idleKnobRadius));
-
-      if (innerCircleEnabled) {
-        canvas.drawCircle(joystickCenterX,
-                joystickCenterY,
-                innerCircleRadius,
-                innerCirclePaint);
+        if (innerCircleEnabled)
+          drawCircle(canvas, innerCircleRadius, innerCirclePaint);
       }
+
+      knob.draw(canvas);
+    } finally {
+      if (tracer != null)
+        tracer.endSection();
     }
+  }
 
-    knob.draw(canvas);
+  /**
+   * draws a circle around the joystick center with the paint faded to the view opacity, the
+   * paint is restored afterwards.
+   */
+  protected void drawCircle(Canvas canvas, float radius, Paint paint) {
+    int alpha = paint.getAlpha();
+    paint.setAlpha(alpha * viewAlpha / 255);
+    canvas.drawCircle(joystickCenterX, joystickCenterY, radius, paint);
+    paint.setAlpha(alpha);
   }
 
   @Override
@@ -474,36 +1133,43 @@ public class Joystick extends View {
 
   @Override
   protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-    dimension = Math.min(DEFAULT_MAX_VIEW_DIMENSION,
-            DEFAULT_VIEW_DIMENSION_TO_SCREEN_RATIO * Math.min(screenWidth, screenHeight));
-    int measuredWidth = (int) dimension;
-    int measuredHeight = (int) dimension;
-
-    if (this.getLayoutParams().width == ViewGroup.LayoutParams.WRAP_CONTENT)
-      measuredWidth = (int) dimension;
-    else if (this.getLayoutParams().width != ViewGroup.LayoutParams.MATCH_PARENT)
-      measuredWidth = this.getLayoutParams().width;
-    else if (MeasureSpec.getMode(widthMeasureSpec) != MeasureSpec.UNSPECIFIED)
-      measuredWidth = MeasureSpec.getSize(widthMeasureSpec);
-
-    if (this.getLayoutParams().height == ViewGroup.LayoutParams.WRAP_CONTENT)
-      measuredHeight = (int) dimension;
-    else if (this.getLayoutParams().height != ViewGroup.LayoutParams.MATCH_PARENT)
-      measuredHeight = this.getLayoutParams().height;
-    else if (MeasureSpec.getMode(heightMeasureSpec) != MeasureSpec.UNSPECIFIED)
-      measuredHeight = MeasureSpec.getSize(heightMeasureSpec);
-
-    dimension = Math.min(measuredWidth, measuredHeight);
-    setMeasuredDimension((int) dimension, (int) dimension);
-    initMeasures();
-    initSectorBounds();
+    JoystickTracer tracer = this.tracer;
+    if (tracer != null)
+      tracer.beginSection(TRACE_SECTION_MEASURE);
+    try {
+      dimension = Math.min(DEFAULT_MAX_VIEW_DIMENSION,
+              DEFAULT_VIEW_DIMENSION_TO_SCREEN_RATIO * Math.min(screenWidth, screenHeight));
+      int measuredWidth = (int) dimension;
+      int measuredHeight = (int) dimension;
+
+      if (this.getLayoutParams().width == ViewGroup.LayoutParams.WRAP_CONTENT)
+        measuredWidth = (int) dimension;
+      else if (this.getLayoutParams().width != ViewGroup.LayoutParams.MATCH_PARENT)
+        measuredWidth = this.getLayoutParams().width;
+      else if (MeasureSpec.getMode(widthMeasureSpec) != MeasureSpec.UNSPECIFIED)
+        measuredWidth = MeasureSpec.getSize(widthMeasureSpec);
+
+      if (this.getLayoutParams().height == ViewGroup.LayoutParams.WRAP_CONTENT)
+        measuredHeight = (int) dimension;
+      else if (this.getLayoutParams().height != ViewGroup.LayoutParams.MATCH_PARENT)
+        measuredHeight = this.getLayoutParams().height;
+      else if (MeasureSpec.getMode(heightMeasureSpec) != MeasureSpec.UNSPECIFIED)
+        measuredHeight = MeasureSpec.getSize(heightMeasureSpec);
+
+      dimension = Math.min(measuredWidth, measuredHeight);
+      setMeasuredDimension((int) dimension, (int) dimension);
+      updateGeometry();
+    } finally {
+      if (tracer != null)
+        tracer.endSection();
+    }
   }
 
   @Override
   public void setBackground(@NonNull Drawable background) {
     if (background == null)
       throw new NullPointerException(ERROR_MSG_NULL_ARGUMENT);
-    super.setBackground(background);
+    super.setBackground(background.mutate());
     this.invalidate();
   }
 
@@ -519,12 +1185,51 @@ public class Joystick extends View {
     this.sectorBoundsEnabled = sectorBoundsEnabled;
   }
 
+  public int getNumberOfSectors() {
+    return sectorClassifier.getNumberOfSectors();
+  }
+
+  /**
+   * splits the joystick into numberOfSectors equal sectors, sector 0 is centered on the right
+   * direction and the next sectors follow counter-clockwise. the sectorHysteresis is reset if
+   * it is not smaller than half of the new sector angle.
+   */
+  public void setNumberOfSectors(int numberOfSectors) {
+    setSectorClassifier(new SectorClassifier(numberOfSectors));
+  }
+
+  /**
+   * splits the joystick into sectors proportional to the passed weights, sector 0 is centered
+   * on the right direction and the next sectors follow counter-clockwise. the sectorHysteresis
+   * is reset if it is not smaller than half of the smallest new sector angle.
+   */
+  public void setSectorWeights(@NonNull float[] sectorWeights) {
+    if (sectorWeights == null)
+      throw new NullPointerException(ERROR_MSG_NULL_ARGUMENT);
+    setSectorClassifier(new SectorClassifier(sectorWeights));
+  }
+
+  public SectorClassifier getSectorClassifier() {
+    return sectorClassifier;
+  }
+
+  public void setSectorClassifier(@NonNull SectorClassifier sectorClassifier) {
+    if (sectorClassifier == null)
+      throw new NullPointerException(ERROR_MSG_NULL_ARGUMENT);
+
+    initSectors(sectorClassifier);
+    if (isLaidOut)
+      updateGeometry();
+    this.invalidate();
+  }
+
   public boolean isInnerCircleEnabled() {
     return innerCircleEnabled;
   }
 
   public void setInnerCircleEnabled(boolean innerCircleEnabled) {
     this.innerCircleEnabled = innerCircleEnabled;
+    renderCache.invalidate();
     this.invalidate();
   }
 
@@ -536,8 +1241,7 @@ public class Joystick extends View {
     this.getLayoutParams().width = (int) dimension;
     this.getLayoutParams().height = (int) dimension;
     this.dimension = dimension;
-    initMeasures();
-    initSectorBounds();
+    updateGeometry();
   }
 
   public float getJoystickRadius() {
@@ -552,6 +1256,7 @@ public class Joystick extends View {
     if (innerCirclePaint == null)
       throw new NullPointerException(ERROR_MSG_NULL_ARGUMENT);
     this.innerCirclePaint = innerCirclePaint;
+    renderCache.invalidate();
   }
 
   public Paint getNeutralInnerCirclePaint() {
@@ -562,6 +1267,7 @@ public class Joystick extends View {
     if (neutralInnerCirclePaint == null)
       throw new NullPointerException(ERROR_MSG_NULL_ARGUMENT);
     this.neutralInnerCirclePaint = neutralInnerCirclePaint;
+    renderCache.invalidate();
   }
 
   public Paint getNeutralBorderCirclePaint() {
@@ -572,6 +1278,7 @@ public class Joystick extends View {
     if (neutralBorderCirclePaint == null)
       throw new NullPointerException(ERROR_MSG_NULL_ARGUMENT);
     this.neutralBorderCirclePaint = neutralBorderCirclePaint;
+    renderCache.invalidate();
   }
 
   public Paint getSectorBoundsPaint() {
@@ -582,6 +1289,7 @@ public class Joystick extends View {
     if (sectorBoundsPaint == null)
       throw new NullPointerException(ERROR_MSG_NULL_ARGUMENT);
     this.sectorBoundsPaint = sectorBoundsPaint;
+    renderCache.invalidate();
   }
 
   public float getInnerCircleRadius() {
@@ -599,7 +1307,8 @@ public class Joystick extends View {
 
     this.innerCircleRadius = innerCircleRadius;
     this.innerCircleRadiusToJoystickRadiusRatio = innerCircleRadius / joystickRadius;
-    this.initSectorBounds();
+    engine.setInnerCircleRadiusToJoystickRadiusRatio(innerCircleRadiusToJoystickRadiusRatio);
+    this.updateGeometry();
     this.invalidate();
   }
 
@@ -618,7 +1327,8 @@ public class Joystick extends View {
 
     this.innerCircleRadiusToJoystickRadiusRatio = innerCircleRadiusToJoystickRadiusRatio;
     this.innerCircleRadius = innerCircleRadiusToJoystickRadiusRatio * joystickRadius;
-    this.initSectorBounds();
+    engine.setInnerCircleRadiusToJoystickRadiusRatio(innerCircleRadiusToJoystickRadiusRatio);
+    this.updateGeometry();
     this.invalidate();
   }
 
@@ -636,6 +1346,7 @@ public class Joystick extends View {
               ", joystickRadius = " + joystickRadius);
 
     this.idleKnobRadius = idleKnobRadius;
+    renderCache.invalidate();
     this.invalidate();
   }
 
@@ -653,6 +1364,7 @@ public class Joystick extends View {
               ", joystickRadius = " + joystickRadius);
 
     this.activeKnobRadius = activeKnobRadius;
+    renderCache.invalidate();
     this.invalidate();
   }
 
@@ -682,6 +1394,22 @@ public class Joystick extends View {
     this.invalidate();
   }
 
+  public long getOpacityFadeDuration() {
+    return opacityFadeDuration;
+  }
+
+  /**
+   * the duration in milliseconds of the fade between the idle and the active opacity when the
+   * joystick is touched and released, 0 switches the opacity at once.
+   */
+  public void setOpacityFadeDuration(long opacityFadeDuration) {
+    if (opacityFadeDuration < 0)
+      throw new IllegalArgumentException(ERROR_MSG_OPACITY_FADE_DURATION_VALUE +
+              ", passed value = " + opacityFadeDuration);
+
+    this.opacityFadeDuration = opacityFadeDuration;
+  }
+
   public Drawable getKnob() {
     return knob;
   }
@@ -690,7 +1418,9 @@ public class Joystick extends View {
     if (knob == null)
       throw new NullPointerException(ERROR_MSG_NULL_ARGUMENT);
 
-    this.knob = knob;
+    // the knob alpha is set to the view opacity on each frame, so it must not be shared
+    this.knob = knob.mutate();
+    renderCache.invalidate();
     this.invalidate();
   }
 
@@ -706,6 +1436,239 @@ public class Joystick extends View {
     this.onKnobMoveNotificationRate = onKnobMoveNotificationRate;
   }
 
+  public boolean isRenderCacheEnabled() {
+    return renderCacheEnabled;
+  }
+
+  /**
+   * when enabled the circles, the sector bounds and the knob are rendered once into bitmaps and
+   * every frame only blits them, trading memory for less work on the ui thread.<br>
+   * if a paint or the knob drawable is modified in place instead of being set again,
+   * {@link #invalidateRenderCache()} must be called.
+   */
+  public void setRenderCacheEnabled(boolean renderCacheEnabled) {
+    this.renderCacheEnabled = renderCacheEnabled;
+    if (!renderCacheEnabled)
+      renderCache.invalidate();
+    this.invalidate();
+  }
+
+  /**
+   * drops the cached layers, they are rendered again on the next frame.
+   */
+  public void invalidateRenderCache() {
+    renderCache.invalidate();
+    this.invalidate();
+  }
+
+  public int getOnKnobMoveNotificationPolicy() {
+    return onKnobMoveNotificationPolicy;
+  }
+
+  /**
+   * @param onKnobMoveNotificationPolicy one of the NOTIFICATION_POLICY_* constants, takes effect
+   *                                     immediately even if the joystick is being touched.
+   */
+  public void setOnKnobMoveNotificationPolicy(int onKnobMoveNotificationPolicy) {
+    if (!isNotificationPolicy(onKnobMoveNotificationPolicy))
+      throw new IllegalArgumentException(ERROR_MSG_NOTIFICATION_POLICY_VALUE +
+              ", passed value = " + onKnobMoveNotificationPolicy);
+
+    this.onKnobMoveNotificationPolicy = onKnobMoveNotificationPolicy;
+    if (onKnobMoveNotificationPolicy == NOTIFICATION_POLICY_NONE)
+      knobSampleBatchBuffer.clear();
+    if (isKnobMoveNotifierRunning())
+      switchKnobMoveNotifier();
+  }
+
+  /**
+   * @param minRate the shortest period in milliseconds of {@link #NOTIFICATION_POLICY_ADAPTIVE},
+   *                used for fast flicks.
+   * @param maxRate the longest period in milliseconds of {@link #NOTIFICATION_POLICY_ADAPTIVE},
+   *                reached while the knob is held still.
+   */
+  public void setAdaptiveNotificationRates(long minRate, long maxRate) {
+    knobMoveRateAdapter.setRates(minRate, maxRate);
+  }
+
+  public long getAdaptiveNotificationMinRate() {
+    return knobMoveRateAdapter.getMinRate();
+  }
+
+  public long getAdaptiveNotificationMaxRate() {
+    return knobMoveRateAdapter.getMaxRate();
+  }
+
+  /**
+   * @param radialVelocityThreshold  the magnitude change per second from which
+   *                                 {@link #NOTIFICATION_POLICY_ADAPTIVE} considers the knob
+   *                                 moving.
+   * @param angularVelocityThreshold the angle change in degrees per second from which
+   *                                 {@link #NOTIFICATION_POLICY_ADAPTIVE} considers the knob
+   *                                 moving.
+   */
+  public void setAdaptiveVelocityThresholds(float radialVelocityThreshold,
+                                            float angularVelocityThreshold) {
+    knobMoveRateAdapter.setVelocityThresholds(radialVelocityThreshold, angularVelocityThreshold);
+  }
+
+  public float getAdaptiveRadialVelocityThreshold() {
+    return knobMoveRateAdapter.getRadialVelocityThreshold();
+  }
+
+  public float getAdaptiveAngularVelocityThreshold() {
+    return knobMoveRateAdapter.getAngularVelocityThreshold();
+  }
+
+  public boolean isNotifyOnChangeOnly() {
+    return notifyOnChangeOnly;
+  }
+
+  /**
+   * @param notifyOnChangeOnly if true the listeners are notified only when the direction
+   *                           changes or the magnitude or the angle change by more than their
+   *                           deadbands since the last notification, instead of every period.
+   */
+  public void setNotifyOnChangeOnly(boolean notifyOnChangeOnly) {
+    this.notifyOnChangeOnly = notifyOnChangeOnly;
+  }
+
+  public float getMagnitudeDeadband() {
+    return magnitudeDeadband;
+  }
+
+  public void setMagnitudeDeadband(float magnitudeDeadband) {
+    if (magnitudeDeadband < 0.0 || magnitudeDeadband > 1.0)
+      throw new IllegalArgumentException(ERROR_MSG_MAGNITUDE_DEADBAND_VALUE +
+              ", passed value = " + magnitudeDeadband);
+
+    this.magnitudeDeadband = magnitudeDeadband;
+  }
+
+  public float getAngleDeadband() {
+    return angleDeadband;
+  }
+
+  public void setAngleDeadband(float angleDeadband) {
+    if (angleDeadband < 0.0 || angleDeadband > MAX_ANGLE / 2)
+      throw new IllegalArgumentException(ERROR_MSG_ANGLE_DEADBAND_VALUE +
+              ", passed value = " + angleDeadband);
+
+    this.angleDeadband = angleDeadband;
+  }
+
+  public float getSectorHysteresis() {
+    return engine.getSectorHysteresis();
+  }
+
+  /**
+   * @param sectorHysteresis the number of degrees the knob has to pass the boundary of its
+   *                         current sector by before the direction changes, this keeps the
+   *                         direction stable when the knob rests on a sector boundary.
+   */
+  public void setSectorHysteresis(float sectorHysteresis) {
+    engine.setSectorHysteresis(sectorHysteresis);
+  }
+
+  /**
+   * adds a subscriber receiving every notified knob state on its own executor, independently of
+   * the other listeners and subscribers.
+   *
+   * @param queueCapacity the number of states queued while the listener is busy, the oldest
+   *                      ones are dropped beyond it, {@link KnobStateSubscription#CONFLATING_CAPACITY}
+   *                      delivers only the latest state.
+   * @return the subscription, to read its dropped count and to unsubscribe.
+   */
+  public KnobStateSubscription subscribe(@NonNull OnKnobStateListener onKnobStateListener,
+                                         @NonNull Executor executor, int queueCapacity) {
+    KnobStateSubscription knobStateSubscription =
+            new KnobStateSubscription(onKnobStateListener, executor, queueCapacity);
+    synchronized (subscriptionLock) {
+      KnobStateSubscription[] knobStateSubscriptions =
+              new KnobStateSubscription[this.knobStateSubscriptions.length + 1];
+      System.arraycopy(this.knobStateSubscriptions, 0, knobStateSubscriptions, 0,
+              this.knobStateSubscriptions.length);
+      knobStateSubscriptions[this.knobStateSubscriptions.length] = knobStateSubscription;
+      this.knobStateSubscriptions = knobStateSubscriptions;
+    }
+    return knobStateSubscription;
+  }
+
+  /**
+   * adds a subscriber receiving every notified knob state on the looper of the passed handler.
+   */
+  public KnobStateSubscription subscribe(@NonNull OnKnobStateListener onKnobStateListener,
+                                         @NonNull Handler handler, int queueCapacity) {
+    return subscribe(onKnobStateListener, KnobStateSubscription.handlerExecutor(handler),
+            queueCapacity);
+  }
+
+  /**
+   * removes the passed subscription, the states it has not delivered yet are discarded.
+   */
+  public void unsubscribe(@NonNull KnobStateSubscription knobStateSubscription) {
+    if (knobStateSubscription == null)
+      throw new NullPointerException(ERROR_MSG_NULL_ARGUMENT);
+
+    knobStateSubscription.cancel();
+    synchronized (subscriptionLock) {
+      int numberOfSubscriptions = this.knobStateSubscriptions.length;
+      for (int i = 0; i < numberOfSubscriptions; ++i) {
+        if (this.knobStateSubscriptions[i] != knobStateSubscription)
+          continue;
+
+        KnobStateSubscription[] knobStateSubscriptions = numberOfSubscriptions == 1 ?
+                NO_SUBSCRIPTIONS : new KnobStateSubscription[numberOfSubscriptions - 1];
+        System.arraycopy(this.knobStateSubscriptions, 0, knobStateSubscriptions, 0, i);
+        System.arraycopy(this.knobStateSubscriptions, i + 1, knobStateSubscriptions, i,
+                numberOfSubscriptions - i - 1);
+        this.knobStateSubscriptions = knobStateSubscriptions;
+        return;
+      }
+    }
+  }
+
+  public boolean isMetricsEnabled() {
+    return metrics != null;
+  }
+
+  /**
+   * starts or stops recording the input latencies and the notification counters, see
+   * {@link JoystickMetrics}. enabling the metrics again starts from empty metrics.
+   */
+  public void setMetricsEnabled(boolean metricsEnabled) {
+    if (metricsEnabled == (metrics != null))
+      return;
+
+    undrawnProcessedTime = 0;
+    metrics = metricsEnabled ? new JoystickMetrics() : null;
+  }
+
+  /**
+   * @return the metrics recorded since they were enabled, or null if they are disabled.
+   */
+  public JoystickMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * @return the tracer receiving the trace sections and counters, or null if tracing is
+   * disabled.
+   */
+  public JoystickTracer getTracer() {
+    return tracer;
+  }
+
+  /**
+   * sends trace sections around the touch handling, the measure and draw passes and each
+   * notification of the listeners, and counters for the knob state and the notifier backlog,
+   * to the passed tracer, e.g. an {@link AndroidJoystickTracer}. null disables tracing, which
+   * then costs one field read per traced method.
+   */
+  public void setTracer(JoystickTracer tracer) {
+    this.tracer = tracer;
+  }
+
   public OnKnobMoveListener getOnKnobMoveListener() {
     return onKnobMoveListener;
   }
@@ -714,27 +1677,154 @@ public class Joystick extends View {
     this.onKnobMoveListener = onKnobMoveListener;
   }
 
+  public OnKnobStateListener getOnKnobStateListener() {
+    return onKnobStateListener;
+  }
+
+  public void setOnKnobStateListener(OnKnobStateListener onKnobStateListener) {
+    this.onKnobStateListener = onKnobStateListener;
+  }
+
+  public OnKnobMoveBatchListener getOnKnobMoveBatchListener() {
+    return onKnobMoveBatchListener;
+  }
+
+  /**
+   * @param onKnobMoveBatchListener receives every touch sample, including the samples the
+   *                                system batched between two touch events, on every
+   *                                notification. it is never called under
+   *                                {@link #NOTIFICATION_POLICY_NONE}, since no notifier runs,
+   *                                and no sample is collected for it.
+   */
+  public void setOnKnobMoveBatchListener(OnKnobMoveBatchListener onKnobMoveBatchListener) {
+    if (onKnobMoveBatchListener != null && this.onKnobMoveBatchListener == null)
+      knobSampleBatchBuffer.clear();
+    this.onKnobMoveBatchListener = onKnobMoveBatchListener;
+  }
+
   public interface OnKnobMoveListener {
     void onKnobMove(float magnitude, float angle, int direction);
   }
 
-  protected class OnKnobMoveNotifier extends Thread {
+  /**
+   * receives the full knob state, the passed snapshot is reused by the notifier so it must be
+   * copied using {@link KnobState#set(KnobState)} if it is needed after the call returns.
+   */
+  public interface OnKnobStateListener {
+    void onKnobState(KnobState knobState);
+  }
+
+  /**
+   * receives all the samples processed since the previous notification, the passed batch is
+   * reused by the notifier so its content must be copied if it is needed after the call returns.
+   */
+  public interface OnKnobMoveBatchListener {
+    void onKnobMoveBatch(KnobSampleBatch knobSampleBatch);
+  }
+
+  /**
+   * notifies the listeners from the thread of the shared {@link KnobMoveScheduler} every
+   * onKnobMoveNotificationRate milliseconds, used by {@link #NOTIFICATION_POLICY_RATE}.
+   */
+  protected class OnKnobMoveNotifier implements KnobMoveScheduler.Task {
     @Override
-    public void run() {
-      if (onKnobMoveNotificationRate < 10) {
-        while (!this.isInterrupted() && (onKnobMoveListener != null)) {
-          onKnobMoveListener.onKnobMove(magnitude, angle, direction);
-        }
-      } else {
-        while (!this.isInterrupted() && (onKnobMoveListener != null)) {
-          onKnobMoveListener.onKnobMove(magnitude, angle, direction);
-          try {
-            Thread.sleep(onKnobMoveNotificationRate);
-          } catch (InterruptedException e) {
-            break;
-          }
-        }
+    public void start() {
+      knobMoveRateAdapter.reset();
+    }
+
+    @Override
+    public long run() {
+      JoystickMetrics metrics = Joystick.this.metrics;
+      long runTime = metrics != null ? System.nanoTime() : 0;
+      long period;
+      synchronized (dispatchLock) {
+        dispatchKnobMove(false);
+        period = nextPeriod();
       }
+      if (metrics != null && period > 0 && System.nanoTime() - runTime > period)
+        metrics.recordNotifierOverrun();
+      return period;
+    }
+
+    protected long nextPeriod() {
+      // the next run is requested by the next touch event
+      if (onKnobMoveNotificationPolicy == NOTIFICATION_POLICY_HANDOFF)
+        return -1;
+      // without listeners notifiedKnobState is not read again and the period backs off to
+      // maxRate
+      if (onKnobMoveNotificationPolicy == NOTIFICATION_POLICY_ADAPTIVE)
+        return knobMoveRateAdapter.nextPeriod(notifiedKnobState, onKnobMoveNotificationRate);
+      return TimeUnit.MILLISECONDS.toNanos(onKnobMoveNotificationRate);
+    }
+
+    @Override
+    public void stop() {
+      // the joystick publishes the released state before cancelling the notifier
+      dispatchKnobMove(true);
+    }
+  }
+
+  /**
+   * notifies the listeners on the UI thread from the frame callbacks of the {@link Choreographer},
+   * used by {@link #NOTIFICATION_POLICY_FRAME}.
+   */
+  protected class OnKnobMoveFrameNotifier implements Choreographer.FrameCallback {
+    protected boolean isRunning;
+
+    public void start() {
+      if (isRunning)
+        return;
+
+      isRunning = true;
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    public void stop() {
+      if (!isRunning)
+        return;
+
+      isRunning = false;
+      Choreographer.getInstance().removeFrameCallback(this);
+      dispatchKnobMove(true);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+      if (!isRunning)
+        return;
+
+      // the frames keep coming until the knob is released, a listener set in the middle of the
+      // gesture is notified from the next frame
+      dispatchKnobMove(false);
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+  }
+
+  /**
+   * notifies the listeners on the UI thread right after each touch event is processed, used by
+   * {@link #NOTIFICATION_POLICY_SYNCHRONOUS}.
+   */
+  protected class OnKnobMoveSynchronousNotifier {
+    protected boolean isRunning;
+
+    public void start() {
+      if (isRunning)
+        return;
+
+      isRunning = true;
+      dispatch();
+    }
+
+    public void stop() {
+      if (!isRunning)
+        return;
+
+      isRunning = false;
+      dispatchKnobMove(true);
+    }
+
+    public void dispatch() {
+      dispatchKnobMove(false);
     }
   }
 }
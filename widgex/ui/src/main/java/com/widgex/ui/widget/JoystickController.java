@@ -0,0 +1,229 @@
+package com.widgex.ui.widget;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * aggregates several {@link Joystick}s, e.g. the two sticks of a twin-stick controller, into one
+ * versioned {@link ControllerState} delivered once per tick from the shared
+ * {@link KnobMoveScheduler} thread, instead of one notification per stick at its own phase.<br>
+ * every tick reads all the sticks as one consistent cut: each stick is read through its
+ * sequence lock, then the sequences of all the sticks are checked again and the sticks that
+ * changed meanwhile are read again, so the delivered states were all current at the same
+ * instant.<br>
+ * the sticks keep notifying their own listeners, setting their notification policy to
+ * {@link Joystick#NOTIFICATION_POLICY_NONE} leaves the controller as the only notifier.
+ */
+public class JoystickController {
+  /**
+   * the maximum number of validation passes of one tick, reached only if the sticks are
+   * published faster than they can be read, the last pass is then delivered as is.
+   */
+  protected static final int MAX_READ_ATTEMPTS = 16;
+
+  protected static final String ERROR_MSG_NULL_ARGUMENT = "passed parameter is null";
+  protected static final String ERROR_MSG_NOTIFICATION_RATE_VALUE = "invalid " +
+          "onControllerStateNotificationRate, onControllerStateNotificationRate value should " +
+          "be >= 0";
+  protected static final Joystick[] NO_JOYSTICKS = new Joystick[0];
+
+  // copy on write, read by the notifier without locking
+  protected volatile Joystick[] joysticks;
+  protected volatile long onControllerStateNotificationRate;
+  protected volatile boolean notifyOnChangeOnly;
+  protected volatile OnControllerStateListener onControllerStateListener;
+  protected final OnControllerStateNotifier onControllerStateNotifier;
+
+  public JoystickController() {
+    joysticks = NO_JOYSTICKS;
+    onControllerStateNotificationRate = Joystick.ON_KNOB_MOVE_NOTIFICATION_DEFAULT_RATE;
+    notifyOnChangeOnly = false;
+    onControllerStateNotifier = new OnControllerStateNotifier();
+  }
+
+  /**
+   * adds a stick, its state is delivered at the next index of {@link ControllerState#knobStates}.
+   */
+  public synchronized void addJoystick(@NonNull Joystick joystick) {
+    if (joystick == null)
+      throw new NullPointerException(ERROR_MSG_NULL_ARGUMENT);
+
+    Joystick[] joysticks = new Joystick[this.joysticks.length + 1];
+    System.arraycopy(this.joysticks, 0, joysticks, 0, this.joysticks.length);
+    joysticks[this.joysticks.length] = joystick;
+    this.joysticks = joysticks;
+  }
+
+  /**
+   * removes a stick, the states of the following sticks move down one index.
+   */
+  public synchronized void removeJoystick(Joystick joystick) {
+    int numberOfJoysticks = this.joysticks.length;
+    for (int i = 0; i < numberOfJoysticks; ++i) {
+      if (this.joysticks[i] != joystick)
+        continue;
+
+      Joystick[] joysticks = numberOfJoysticks == 1 ? NO_JOYSTICKS :
+              new Joystick[numberOfJoysticks - 1];
+      System.arraycopy(this.joysticks, 0, joysticks, 0, i);
+      System.arraycopy(this.joysticks, i + 1, joysticks, i, numberOfJoysticks - i - 1);
+      this.joysticks = joysticks;
+      return;
+    }
+  }
+
+  public Joystick[] getJoysticks() {
+    return joysticks.clone();
+  }
+
+  /**
+   * starts delivering the controller state every onControllerStateNotificationRate
+   * milliseconds.
+   */
+  public void start() {
+    KnobMoveScheduler knobMoveScheduler = KnobMoveScheduler.getInstance();
+    if (!knobMoveScheduler.isScheduled(onControllerStateNotifier))
+      knobMoveScheduler.schedule(onControllerStateNotifier);
+  }
+
+  /**
+   * stops delivering the controller state, a last state is delivered if it changed since the
+   * previous delivery.
+   */
+  public void stop() {
+    KnobMoveScheduler.getInstance().cancel(onControllerStateNotifier);
+  }
+
+  public boolean isStarted() {
+    return KnobMoveScheduler.getInstance().isScheduled(onControllerStateNotifier);
+  }
+
+  /**
+   * reads all the passed publishers as one consistent cut, a publisher is read again while its
+   * sequence changed since it was read, until a whole validation pass finds no change.
+   *
+   * @return true if the cut is consistent, false if MAX_READ_ATTEMPTS passes were not enough.
+   */
+  protected static boolean readConsistentCut(KnobStatePublisher[] knobStatePublishers,
+                                             KnobState[] knobStates) {
+    for (int i = 0; i < knobStatePublishers.length; ++i)
+      knobStatePublishers[i].read(knobStates[i]);
+
+    for (int attempt = 1; attempt < MAX_READ_ATTEMPTS; ++attempt) {
+      boolean isConsistent = true;
+      for (int i = 0; i < knobStatePublishers.length; ++i) {
+        if (knobStatePublishers[i].getSequence() != knobStates[i].sequence) {
+          knobStatePublishers[i].read(knobStates[i]);
+          isConsistent = false;
+        }
+      }
+      if (isConsistent)
+        return true;
+    }
+    return false;
+  }
+
+  public long getOnControllerStateNotificationRate() {
+    return onControllerStateNotificationRate;
+  }
+
+  /**
+   * @param onControllerStateNotificationRate the number of milliseconds between two ticks, 0
+   *                                          delivers continuously.
+   */
+  public void setOnControllerStateNotificationRate(long onControllerStateNotificationRate) {
+    if (onControllerStateNotificationRate < 0)
+      throw new IllegalArgumentException(ERROR_MSG_NOTIFICATION_RATE_VALUE +
+              ", passed value = " + onControllerStateNotificationRate);
+
+    this.onControllerStateNotificationRate = onControllerStateNotificationRate;
+  }
+
+  public boolean isNotifyOnChangeOnly() {
+    return notifyOnChangeOnly;
+  }
+
+  /**
+   * @param notifyOnChangeOnly if true the listener is notified only on the ticks where the
+   *                           version changed, instead of every tick.
+   */
+  public void setNotifyOnChangeOnly(boolean notifyOnChangeOnly) {
+    this.notifyOnChangeOnly = notifyOnChangeOnly;
+  }
+
+  public OnControllerStateListener getOnControllerStateListener() {
+    return onControllerStateListener;
+  }
+
+  public void setOnControllerStateListener(OnControllerStateListener onControllerStateListener) {
+    this.onControllerStateListener = onControllerStateListener;
+  }
+
+  /**
+   * receives the state of all the sticks once per tick, the passed snapshot is reused by the
+   * controller so it must be copied using {@link ControllerState#set(ControllerState)} if it is
+   * needed after the call returns.
+   */
+  public interface OnControllerStateListener {
+    void onControllerState(ControllerState controllerState);
+  }
+
+  protected class OnControllerStateNotifier implements KnobMoveScheduler.Task {
+    protected final ControllerState controllerState = new ControllerState();
+    protected Joystick[] readJoysticks = NO_JOYSTICKS;
+    protected KnobStatePublisher[] knobStatePublishers = new KnobStatePublisher[0];
+    protected long[] lastSequences = new long[0];
+    protected long lastNotifiedVersion;
+
+    @Override
+    public void start() {
+      lastNotifiedVersion = -1;
+    }
+
+    @Override
+    public long run() {
+      tick(false);
+      return TimeUnit.MILLISECONDS.toNanos(onControllerStateNotificationRate);
+    }
+
+    @Override
+    public void stop() {
+      tick(true);
+    }
+
+    protected void tick(boolean isFinal) {
+      Joystick[] joysticks = JoystickController.this.joysticks;
+      boolean isChanged = joysticks != readJoysticks;
+      if (isChanged) {
+        readJoysticks = joysticks;
+        knobStatePublishers = new KnobStatePublisher[joysticks.length];
+        for (int i = 0; i < joysticks.length; ++i)
+          knobStatePublishers[i] = joysticks[i].knobStatePublisher;
+        lastSequences = new long[joysticks.length];
+        controllerState.setNumberOfSticks(joysticks.length);
+      }
+
+      readConsistentCut(knobStatePublishers, controllerState.knobStates);
+      for (int i = 0; i < joysticks.length; ++i) {
+        long sequence = controllerState.knobStates[i].sequence;
+        isChanged |= sequence != lastSequences[i];
+        lastSequences[i] = sequence;
+      }
+      if (isChanged)
+        ++controllerState.version;
+      controllerState.tickTime = SystemClock.uptimeMillis();
+
+      OnControllerStateListener onControllerStateListener =
+              JoystickController.this.onControllerStateListener;
+      if (onControllerStateListener == null)
+        return;
+      if ((isFinal || notifyOnChangeOnly) && controllerState.version == lastNotifiedVersion)
+        return;
+
+      lastNotifiedVersion = controllerState.version;
+      onControllerStateListener.onControllerState(controllerState);
+    }
+  }
+}
@@ -0,0 +1,434 @@
+package com.widgex.ui.widget;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * a layout hosting several {@link Joystick}s, e.g. the two sticks of a twin-stick controller.<br>
+ * the layout takes every gesture whose pointer goes down on a joystick and routes every pointer,
+ * by its id, to the joystick it went down on, so each finger drives exactly one joystick whatever
+ * the other fingers do. the gestures starting elsewhere go to the other children as usual until
+ * a pointer goes down on a joystick. the listeners of all the hosted joysticks are notified by
+ * one notifier owned by the layout instead of one notifier per joystick.<br>
+ * the joysticks are hit tested with their layout bounds, so they should not be translated,
+ * scaled or rotated.
+ */
+public class JoystickLayout extends FrameLayout {
+  protected static final Joystick[] NO_JOYSTICKS = new Joystick[0];
+
+  // the hosted joysticks, collected when a gesture starts
+  protected Joystick joysticks[];
+  protected OnKnobMoveNotifier onKnobMoveNotifier;
+  protected OnKnobMoveUiThreadNotifier onKnobMoveUiThreadNotifier;
+  // set on the UI thread and read by the notifier on the scheduler thread
+  protected volatile int onKnobMoveNotificationPolicy;
+  protected volatile long onKnobMoveNotificationRate;
+
+  public JoystickLayout(Context context) {
+    super(context);
+    init();
+  }
+
+  public JoystickLayout(Context context, AttributeSet attrs) {
+    super(context, attrs);
+    init();
+  }
+
+  public JoystickLayout(Context context, AttributeSet attrs, int defStyleAttr) {
+    super(context, attrs, defStyleAttr);
+    init();
+  }
+
+  protected void init() {
+    joysticks = NO_JOYSTICKS;
+    onKnobMoveNotifier = new OnKnobMoveNotifier();
+    onKnobMoveUiThreadNotifier = new OnKnobMoveUiThreadNotifier();
+    onKnobMoveNotificationPolicy = Joystick.NOTIFICATION_POLICY_RATE;
+    onKnobMoveNotificationRate = Joystick.ON_KNOB_MOVE_NOTIFICATION_DEFAULT_RATE;
+  }
+
+  /**
+   * takes the gesture from the children when a pointer goes down on a joystick, the joysticks
+   * never receive the touch events themselves.<br>
+   * a pointer going down on a joystick while another child has the gesture is pressed here,
+   * the intercepted event is not delivered to onTouchEvent.
+   */
+  @Override
+  public boolean onInterceptTouchEvent(MotionEvent event) {
+    switch (event.getActionMasked()) {
+      case MotionEvent.ACTION_DOWN: {
+        collectJoysticks();
+        return findJoystick(event, 0) != null;
+      }
+      case MotionEvent.ACTION_POINTER_DOWN: {
+        if (findJoystick(event, event.getActionIndex()) == null)
+          return false;
+
+        Joystick.requestLowLatencyDispatch(this, event, onKnobMoveNotificationPolicy);
+        pressKnob(event, event.getActionIndex());
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean onTouchEvent(@NonNull MotionEvent event) {
+    switch (event.getActionMasked()) {
+      case MotionEvent.ACTION_DOWN: {
+        Joystick.requestLowLatencyDispatch(this, event, onKnobMoveNotificationPolicy);
+        collectJoysticks();
+        pressKnob(event, 0);
+        break;
+      }
+      case MotionEvent.ACTION_POINTER_DOWN: {
+        pressKnob(event, event.getActionIndex());
+        break;
+      }
+      case MotionEvent.ACTION_MOVE: {
+        boolean isBackedOff = false;
+        for (Joystick joystick : joysticks) {
+          if (!joystick.isActive())
+            continue;
+
+          int pointerIndex = event.findPointerIndex(joystick.getActivePointerId());
+          if (pointerIndex >= 0)
+            joystick.moveKnob(event, pointerIndex, -joystick.getLeft(), -joystick.getTop());
+          // the notifier only paces itself on the joysticks it notifies
+          if (joystick.hasKnobMoveListeners())
+            isBackedOff |= joystick.knobMoveRateAdapter.isBackedOff();
+        }
+
+        handOffKnobStates(isBackedOff);
+        break;
+      }
+      case MotionEvent.ACTION_CANCEL: {
+        cancelKnobs();
+        break;
+      }
+      case MotionEvent.ACTION_POINTER_UP:
+      case MotionEvent.ACTION_UP: {
+        int pointerId = event.getPointerId(event.getActionIndex());
+        for (Joystick joystick : joysticks) {
+          if (joystick.isActive() && joystick.getActivePointerId() == pointerId)
+            joystick.releaseKnob(event.getEventTime());
+        }
+
+        if (!isAnyJoystickActive())
+          stopKnobMoveNotifier();
+        else
+          handOffKnobStates(false);
+        break;
+      }
+    }
+
+    // the gesture is kept even if it started outside the joysticks, a later finger may hit one
+    return true;
+  }
+
+  @Override
+  protected void onDetachedFromWindow() {
+    cancelKnobs();
+    super.onDetachedFromWindow();
+  }
+
+  @Override
+  protected void onWindowVisibilityChanged(int visibility) {
+    super.onWindowVisibilityChanged(visibility);
+    if (visibility != View.VISIBLE)
+      cancelKnobs();
+  }
+
+  /**
+   * releases all the knobs and stops notifying, used when the gesture can not end normally.
+   */
+  protected void cancelKnobs() {
+    long eventTime = SystemClock.uptimeMillis();
+    for (Joystick joystick : joysticks) {
+      if (joystick.isActive())
+        joystick.releaseKnob(eventTime);
+    }
+    stopKnobMoveNotifier();
+  }
+
+  /**
+   * @return the topmost visible idle joystick under the pointer at pointerIndex, or null.
+   */
+  protected Joystick findJoystick(MotionEvent event, int pointerIndex) {
+    float x = event.getX(pointerIndex);
+    float y = event.getY(pointerIndex);
+    for (int i = joysticks.length - 1; i >= 0; --i) {
+      Joystick joystick = joysticks[i];
+      if (!joystick.isActive() && joystick.getVisibility() == View.VISIBLE &&
+              x >= joystick.getLeft() && x < joystick.getRight() &&
+              y >= joystick.getTop() && y < joystick.getBottom())
+        return joystick;
+    }
+    return null;
+  }
+
+  /**
+   * gives the pointer at pointerIndex to the topmost idle joystick under it, if any.
+   */
+  protected void pressKnob(MotionEvent event, int pointerIndex) {
+    Joystick joystick = findJoystick(event, pointerIndex);
+    if (joystick == null)
+      return;
+
+    boolean isFirstKnob = !isAnyJoystickActive();
+    joystick.pressKnob(event.getPointerId(pointerIndex),
+            event.getX(pointerIndex) - joystick.getLeft(),
+            event.getY(pointerIndex) - joystick.getTop(), event.getEventTime());
+    if (isFirstKnob)
+      startKnobMoveNotifier();
+    else
+      handOffKnobStates(false);
+  }
+
+  /**
+   * hands the states just published by a touch event to the notifier if it does not poll for
+   * them.
+   */
+  protected void handOffKnobStates(boolean isBackedOff) {
+    if (onKnobMoveUiThreadNotifier.isSynchronous)
+      onKnobMoveUiThreadNotifier.dispatch();
+    else if (isBackedOff || onKnobMoveNotificationPolicy == Joystick.NOTIFICATION_POLICY_HANDOFF)
+      KnobMoveScheduler.getInstance().runNow(onKnobMoveNotifier);
+  }
+
+  /**
+   * collects the joysticks among the children, the children are expected to change only
+   * between gestures.
+   */
+  protected void collectJoysticks() {
+    int numberOfJoysticks = 0;
+    for (int i = 0, childCount = getChildCount(); i < childCount; ++i) {
+      if (getChildAt(i) instanceof Joystick)
+        ++numberOfJoysticks;
+    }
+
+    boolean isChanged = numberOfJoysticks != joysticks.length;
+    for (int i = 0, j = 0, childCount = getChildCount(); i < childCount && !isChanged; ++i) {
+      View child = getChildAt(i);
+      if (child instanceof Joystick)
+        isChanged = child != joysticks[j++];
+    }
+    if (!isChanged)
+      return;
+
+    // a new array, a notifier that is still finishing keeps iterating the old one
+    Joystick[] joysticks = new Joystick[numberOfJoysticks];
+    for (int i = 0, j = 0, childCount = getChildCount(); i < childCount; ++i) {
+      View child = getChildAt(i);
+      if (child instanceof Joystick)
+        joysticks[j++] = (Joystick) child;
+    }
+    this.joysticks = joysticks;
+  }
+
+  protected boolean isAnyJoystickActive() {
+    for (Joystick joystick : joysticks) {
+      if (joystick.isActive())
+        return true;
+    }
+    return false;
+  }
+
+  protected void startKnobMoveNotifier() {
+    stopKnobMoveNotifier();
+    if (onKnobMoveNotificationPolicy == Joystick.NOTIFICATION_POLICY_FRAME) {
+      onKnobMoveUiThreadNotifier.start(joysticks, false);
+    } else if (onKnobMoveNotificationPolicy == Joystick.NOTIFICATION_POLICY_SYNCHRONOUS) {
+      onKnobMoveUiThreadNotifier.start(joysticks, true);
+    } else if (onKnobMoveNotificationPolicy != Joystick.NOTIFICATION_POLICY_NONE) {
+      onKnobMoveNotifier.setJoysticks(joysticks);
+      KnobMoveScheduler.getInstance().schedule(onKnobMoveNotifier);
+    }
+  }
+
+  protected void stopKnobMoveNotifier() {
+    onKnobMoveUiThreadNotifier.stop();
+    KnobMoveScheduler.getInstance().cancel(onKnobMoveNotifier);
+  }
+
+  public int getOnKnobMoveNotificationPolicy() {
+    return onKnobMoveNotificationPolicy;
+  }
+
+  /**
+   * @param onKnobMoveNotificationPolicy one of the Joystick.NOTIFICATION_POLICY_* constants, it
+   *                                     replaces the policies of the hosted joysticks.
+   */
+  public void setOnKnobMoveNotificationPolicy(int onKnobMoveNotificationPolicy) {
+    if (!Joystick.isNotificationPolicy(onKnobMoveNotificationPolicy))
+      throw new IllegalArgumentException(Joystick.ERROR_MSG_NOTIFICATION_POLICY_VALUE +
+              ", passed value = " + onKnobMoveNotificationPolicy);
+
+    this.onKnobMoveNotificationPolicy = onKnobMoveNotificationPolicy;
+    if (isAnyJoystickActive())
+      startKnobMoveNotifier();
+  }
+
+  public long getOnKnobMoveNotificationRate() {
+    return onKnobMoveNotificationRate;
+  }
+
+  /**
+   * @param onKnobMoveNotificationRate the number of milliseconds between two notifications, it
+   *                                   replaces the rates of the hosted joysticks.
+   */
+  public void setOnKnobMoveNotificationRate(long onKnobMoveNotificationRate) {
+    if (onKnobMoveNotificationRate < 0)
+      throw new IllegalArgumentException(Joystick.ERROR_MSG_ON_KNOB_MOVE_NOTIFICATION_RATE_VALUE +
+              ", passed value = " + onKnobMoveNotificationRate);
+
+    this.onKnobMoveNotificationRate = onKnobMoveNotificationRate;
+  }
+
+  /**
+   * dispatches the published state of every joystick to its listeners, each joystick keeps its
+   * own change filtering (notifyOnChangeOnly and deadbands).
+   */
+  protected static void dispatchKnobMoves(Joystick[] joysticks, KnobState[] knobStates,
+                                          KnobState[] lastNotifiedKnobStates, boolean isFinal) {
+    for (int i = 0; i < joysticks.length; ++i) {
+      if (joysticks[i].hasKnobMoveListeners())
+        joysticks[i].dispatchKnobMove(knobStates[i], lastNotifiedKnobStates[i], isFinal);
+    }
+  }
+
+  protected static KnobState[] newKnobStates(int count, long sequence) {
+    KnobState[] knobStates = new KnobState[count];
+    for (int i = 0; i < count; ++i) {
+      knobStates[i] = new KnobState();
+      knobStates[i].sequence = sequence;
+    }
+    return knobStates;
+  }
+
+  /**
+   * notifies the listeners of the joysticks from the thread of the shared
+   * {@link KnobMoveScheduler}, the same notifier is scheduled again for each gesture.
+   */
+  protected class OnKnobMoveNotifier implements KnobMoveScheduler.Task {
+    // set on the UI thread before scheduling and taken by start, which runs after the stop of
+    // the previous gesture, so the arrays below are only touched by the scheduler thread
+    protected volatile Joystick[] nextJoysticks = NO_JOYSTICKS;
+    protected Joystick[] joysticks = NO_JOYSTICKS;
+    protected KnobState[] knobStates = newKnobStates(0, 0);
+    protected KnobState[] lastNotifiedKnobStates = newKnobStates(0, -1);
+
+    /**
+     * sets the joysticks notified from the next start.
+     */
+    public void setJoysticks(Joystick[] joysticks) {
+      nextJoysticks = joysticks;
+    }
+
+    @Override
+    public void start() {
+      Joystick[] joysticks = nextJoysticks;
+      if (joysticks.length != knobStates.length) {
+        knobStates = newKnobStates(joysticks.length, 0);
+        lastNotifiedKnobStates = newKnobStates(joysticks.length, -1);
+      }
+      for (KnobState lastNotifiedKnobState : lastNotifiedKnobStates)
+        lastNotifiedKnobState.sequence = -1;
+
+      this.joysticks = joysticks;
+      for (Joystick joystick : joysticks)
+        joystick.knobMoveRateAdapter.reset();
+    }
+
+    @Override
+    public long run() {
+      dispatchKnobMoves(joysticks, knobStates, lastNotifiedKnobStates, false);
+      if (onKnobMoveNotificationPolicy == Joystick.NOTIFICATION_POLICY_HANDOFF)
+        return -1;
+      if (onKnobMoveNotificationPolicy != Joystick.NOTIFICATION_POLICY_ADAPTIVE)
+        return TimeUnit.MILLISECONDS.toNanos(onKnobMoveNotificationRate);
+
+      // the fastest joystick sets the pace, using the adaptive settings of each joystick. the
+      // state of a joystick without listeners is not read by the dispatch, it would look still
+      long period = Long.MAX_VALUE;
+      for (int i = 0; i < joysticks.length; ++i) {
+        if (!joysticks[i].hasKnobMoveListeners())
+          continue;
+        period = Math.min(period, joysticks[i].knobMoveRateAdapter.nextPeriod(knobStates[i],
+                onKnobMoveNotificationRate));
+      }
+      return period == Long.MAX_VALUE ? TimeUnit.MILLISECONDS.toNanos(onKnobMoveNotificationRate) :
+              period;
+    }
+
+    @Override
+    public void stop() {
+      // the joysticks publish their released state before the notifier is cancelled
+      dispatchKnobMoves(joysticks, knobStates, lastNotifiedKnobStates, true);
+    }
+  }
+
+  /**
+   * notifies the listeners on the UI thread, either from the frame callbacks of the
+   * {@link Choreographer} for {@link Joystick#NOTIFICATION_POLICY_FRAME} or right after each
+   * touch event for {@link Joystick#NOTIFICATION_POLICY_SYNCHRONOUS}.
+   */
+  protected class OnKnobMoveUiThreadNotifier implements Choreographer.FrameCallback {
+    protected Joystick[] joysticks = NO_JOYSTICKS;
+    protected KnobState[] knobStates = newKnobStates(0, 0);
+    protected KnobState[] lastNotifiedKnobStates = newKnobStates(0, -1);
+    protected boolean isRunning;
+    protected boolean isSynchronous;
+
+    public void start(Joystick[] joysticks, boolean isSynchronous) {
+      if (isRunning)
+        return;
+
+      if (joysticks.length != knobStates.length) {
+        knobStates = newKnobStates(joysticks.length, 0);
+        lastNotifiedKnobStates = newKnobStates(joysticks.length, -1);
+      }
+      for (KnobState lastNotifiedKnobState : lastNotifiedKnobStates)
+        lastNotifiedKnobState.sequence = -1;
+
+      this.joysticks = joysticks;
+      this.isSynchronous = isSynchronous;
+      isRunning = true;
+      if (isSynchronous)
+        dispatch();
+      else
+        Choreographer.getInstance().postFrameCallback(this);
+    }
+
+    public void stop() {
+      if (!isRunning)
+        return;
+
+      isRunning = false;
+      isSynchronous = false;
+      Choreographer.getInstance().removeFrameCallback(this);
+      dispatchKnobMoves(joysticks, knobStates, lastNotifiedKnobStates, true);
+    }
+
+    public void dispatch() {
+      dispatchKnobMoves(joysticks, knobStates, lastNotifiedKnobStates, false);
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+      if (!isRunning)
+        return;
+
+      dispatch();
+      Choreographer.getInstance().postFrameCallback(this);
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package com.widgex.ui.widget;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * the input latencies and the notification counters of one {@link Joystick}, recorded while
+ * its metrics are enabled using {@link Joystick#setMetricsEnabled(boolean)}.<br>
+ * the latencies are measured with {@link System#nanoTime()}, which uses the same monotonic clock
+ * as the event times of {@link android.os.SystemClock#uptimeMillis()} on android, so the event
+ * to processed latency has the millisecond precision of the event times.<br>
+ * recording is lock-free and allocation free, a copy of everything is read using
+ * {@link #snapshot()} from any thread.
+ */
+public class JoystickMetrics {
+  protected final LatencyHistogram eventToProcessed;
+  protected final LatencyHistogram processedToDrawn;
+  protected final LatencyHistogram processedToDelivered;
+  protected final AtomicLong callbackCount;
+  protected final AtomicLong droppedSampleCount;
+  protected final AtomicLong notifierOverrunCount;
+
+  public JoystickMetrics() {
+    eventToProcessed = new LatencyHistogram();
+    processedToDrawn = new LatencyHistogram();
+    processedToDelivered = new LatencyHistogram();
+    callbackCount = new AtomicLong();
+    droppedSampleCount = new AtomicLong();
+    notifierOverrunCount = new AtomicLong();
+  }
+
+  /**
+   * @param eventTime     the time of the touch event, in the uptimeMillis time base.
+   * @param processedTime the {@link System#nanoTime()} when the sample was published.
+   */
+  public void recordProcessed(long eventTime, long processedTime) {
+    eventToProcessed.record(processedTime - TimeUnit.MILLISECONDS.toNanos(eventTime));
+  }
+
+  /**
+   * @param drawnTime the {@link System#nanoTime()} when the frame showing the sample was drawn.
+   */
+  public void recordDrawn(long processedTime, long drawnTime) {
+    processedToDrawn.record(drawnTime - processedTime);
+  }
+
+  /**
+   * counts one notification and records its latency.
+   *
+   * @param deliveredTime the {@link System#nanoTime()} when the listeners were called.
+   */
+  public void recordDelivered(long processedTime, long deliveredTime) {
+    callbackCount.incrementAndGet();
+    processedToDelivered.record(deliveredTime - processedTime);
+  }
+
+  /**
+   * counts samples that never reached the listeners.
+   */
+  public void recordDropped(long numberOfSamples) {
+    if (numberOfSamples > 0)
+      droppedSampleCount.addAndGet(numberOfSamples);
+  }
+
+  /**
+   * counts a notifier run that took longer than its period, so the next runs were skipped.
+   */
+  public void recordNotifierOverrun() {
+    notifierOverrunCount.incrementAndGet();
+  }
+
+  /**
+   * clears all the latencies and counters.
+   */
+  public void reset() {
+    eventToProcessed.reset();
+    processedToDrawn.reset();
+    processedToDelivered.reset();
+    callbackCount.set(0);
+    droppedSampleCount.set(0);
+    notifierOverrunCount.set(0);
+  }
+
+  public Snapshot snapshot() {
+    return new Snapshot(eventToProcessed.snapshot(), processedToDrawn.snapshot(),
+            processedToDelivered.snapshot(), callbackCount.get(), droppedSampleCount.get(),
+            notifierOverrunCount.get());
+  }
+
+  /**
+   * an immutable copy of the metrics of a joystick.
+   */
+  public static class Snapshot {
+    /**
+     * from the time of the touch event to the publication of the knob state it produced.
+     */
+    public final LatencyHistogram.Snapshot eventToProcessed;
+    /**
+     * from the publication of a knob state to the draw pass of the first frame showing it.
+     */
+    public final LatencyHistogram.Snapshot processedToDrawn;
+    /**
+     * from the publication of a knob state to the call of the listeners with it.
+     */
+    public final LatencyHistogram.Snapshot processedToDelivered;
+    /**
+     * the number of notifications delivered to the listeners.
+     */
+    public final long callbackCount;
+    /**
+     * the number of published samples that were never delivered, because a later sample
+     * superseded them before the notifier read them, the deadbands filtered them out or the
+     * batch buffer was full.
+     */
+    public final long droppedSampleCount;
+    /**
+     * the number of periodic notifier runs that took longer than the notification period.
+     */
+    public final long notifierOverrunCount;
+
+    protected Snapshot(LatencyHistogram.Snapshot eventToProcessed,
+                       LatencyHistogram.Snapshot processedToDrawn,
+                       LatencyHistogram.Snapshot processedToDelivered, long callbackCount,
+                       long droppedSampleCount, long notifierOverrunCount) {
+      this.eventToProcessed = eventToProcessed;
+      this.processedToDrawn = processedToDrawn;
+      this.processedToDelivered = processedToDelivered;
+      this.callbackCount = callbackCount;
+      this.droppedSampleCount = droppedSampleCount;
+      this.notifierOverrunCount = notifierOverrunCount;
+    }
+  }
+}
@@ -0,0 +1,197 @@
+package com.widgex.ui.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+/**
+ * pre-rendered layers of a {@link Joystick}: the idle circles, the neutral circles, the bounds
+ * of every sector and the idle and active knob sprites, so that drawing a frame is a few bitmap
+ * blits instead of rasterizing strokes and the knob drawable.<br>
+ * the layers are rendered lazily on the first frame that needs them and kept until
+ * {@link #invalidate()}, which the joystick calls whenever the geometry, a paint, the knob or a
+ * drawing flag changes.<br>
+ * the background is not cached: it is drawn by {@link android.view.View#draw(Canvas)} before
+ * onDraw, outside of the joystick drawing, and a hardware accelerated view already keeps it in
+ * a display list of its own that is only recorded again when the drawable changes.
+ */
+public class JoystickRenderCache {
+  // the truncated knob bounds are one pixel narrower, as wide as or one pixel wider than the
+  // truncated knob diameter
+  protected static final int NUMBER_OF_KNOB_SPRITE_SIZES = 3;
+
+  protected final Joystick joystick;
+  protected final Paint bitmapPaint;
+  protected final Rect sectorLayerBounds;
+  protected final Rect knobBounds;
+  // the inner circle, drawn when idle and under the sector bounds when active
+  protected Bitmap idleLayer;
+  // the neutral inner and border circles, drawn when active in the center region
+  protected Bitmap neutralLayer;
+  // the two bounds of every sector, cropped to their bounding box at sectorLayerLeft/Top
+  protected Bitmap sectorLayers[];
+  protected int sectorLayerLeft[];
+  protected int sectorLayerTop[];
+  // the knob rendered at every size of its drawn bounds, indexed by knobSpriteIndex, so a
+  // sprite blitted at the bounds covers the pixels the knob drawable would
+  protected Bitmap idleKnobSprites[];
+  protected Bitmap activeKnobSprites[];
+  protected boolean isValid;
+
+  public JoystickRenderCache(Joystick joystick) {
+    this.joystick = joystick;
+    bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    sectorLayerBounds = new Rect();
+    knobBounds = new Rect();
+    isValid = false;
+  }
+
+  /**
+   * drops all the layers, they are rendered again on the next frame.
+   */
+  public void invalidate() {
+    isValid = false;
+    idleLayer = null;
+    neutralLayer = null;
+    sectorLayers = null;
+    sectorLayerLeft = null;
+    sectorLayerTop = null;
+    idleKnobSprites = null;
+    activeKnobSprites = null;
+  }
+
+  /**
+   * draws the joystick content from the cached layers faded to the passed alpha.
+   *
+   * @return false if the joystick has no size yet, so nothing can be cached.
+   */
+  public boolean draw(Canvas canvas, int alpha) {
+    int dimension = (int) joystick.dimension;
+    if (dimension <= 0)
+      return false;
+
+    if (!isValid) {
+      int numberOfSectors = joystick.sectorClassifier.getNumberOfSectors();
+      sectorLayers = new Bitmap[numberOfSectors];
+      sectorLayerLeft = new int[numberOfSectors];
+      sectorLayerTop = new int[numberOfSectors];
+      idleKnobSprites = new Bitmap[NUMBER_OF_KNOB_SPRITE_SIZES * NUMBER_OF_KNOB_SPRITE_SIZES];
+      activeKnobSprites = new Bitmap[NUMBER_OF_KNOB_SPRITE_SIZES * NUMBER_OF_KNOB_SPRITE_SIZES];
+      isValid = true;
+    }
+
+    bitmapPaint.setAlpha(alpha);
+    if (joystick.isActive) {
+      if (joystick.direction == Joystick.DIRECTION_CENTER) {
+        drawLayer(canvas, getNeutralLayer(dimension), 0, 0);
+      } else {
+        drawLayer(canvas, getIdleLayer(dimension), 0, 0);
+        if (joystick.sectorBoundsEnabled) {
+          int sector = joystick.direction;
+          Bitmap sectorLayer = getSectorLayer(sector);
+          drawLayer(canvas, sectorLayer, sectorLayerLeft[sector], sectorLayerTop[sector]);
+        }
+      }
+
+      drawKnob(canvas, activeKnobSprites, joystick.activeKnobRadius);
+    } else {
+      drawLayer(canvas, getIdleLayer(dimension), 0, 0);
+      drawKnob(canvas, idleKnobSprites, joystick.idleKnobRadius);
+    }
+    return true;
+  }
+
+  public Paint getBitmapPaint() {
+    return bitmapPaint;
+  }
+
+  protected void drawLayer(Canvas canvas, Bitmap layer, float left, float top) {
+    if (layer != null)
+      canvas.drawBitmap(layer, left, top, bitmapPaint);
+  }
+
+  /**
+   * blits the sprite of the knob at the bounds the uncached knob is drawn in.
+   */
+  protected void drawKnob(Canvas canvas, Bitmap knobSprites[], float knobRadius) {
+    joystick.computeKnobBounds(knobBounds, knobRadius);
+    Bitmap knobSprite = getKnobSprite(knobSprites, knobRadius, knobBounds.width(),
+            knobBounds.height());
+    if (knobSprite != null)
+      canvas.drawBitmap(knobSprite, knobBounds.left, knobBounds.top, bitmapPaint);
+  }
+
+  protected Bitmap getIdleLayer(int dimension) {
+    if (idleLayer == null && joystick.innerCircleEnabled) {
+      idleLayer = Bitmap.createBitmap(dimension, dimension, Bitmap.Config.ARGB_8888);
+      new Canvas(idleLayer).drawCircle(joystick.joystickCenterX, joystick.joystickCenterY,
+              joystick.innerCircleRadius, joystick.innerCirclePaint);
+    }
+    return idleLayer;
+  }
+
+  protected Bitmap getNeutralLayer(int dimension) {
+    if (neutralLayer == null && (joystick.innerCircleEnabled || joystick.isBorderCircleEnabled)) {
+      neutralLayer = Bitmap.createBitmap(dimension, dimension, Bitmap.Config.ARGB_8888);
+      Canvas canvas = new Canvas(neutralLayer);
+      if (joystick.innerCircleEnabled)
+        canvas.drawCircle(joystick.joystickCenterX, joystick.joystickCenterY,
+                joystick.innerCircleRadius, joystick.neutralInnerCirclePaint);
+      if (joystick.isBorderCircleEnabled)
+        canvas.drawCircle(joystick.joystickCenterX, joystick.joystickCenterY,
+                joystick.joystickRadius - 1, joystick.neutralBorderCirclePaint);
+    }
+    return neutralLayer;
+  }
+
+  protected Bitmap getSectorLayer(int sector) {
+    if (sectorLayers[sector] == null) {
+      sectorLayerBounds.setEmpty();
+      joystick.unionSectorBounds(sectorLayerBounds, sector);
+      sectorLayerBounds.inset(-1, -1);
+      if (sectorLayerBounds.isEmpty())
+        return null;
+
+      Bitmap sectorLayer = Bitmap.createBitmap(sectorLayerBounds.right - sectorLayerBounds.left,
+              sectorLayerBounds.bottom - sectorLayerBounds.top, Bitmap.Config.ARGB_8888);
+      Canvas canvas = new Canvas(sectorLayer);
+      canvas.translate(-sectorLayerBounds.left, -sectorLayerBounds.top);
+      canvas.drawLines(joystick.sectorBoundsPoints, 4 * sector, 4, joystick.sectorBoundsPaint);
+      canvas.drawLines(joystick.sectorBoundsPoints,
+              4 * ((sector + 1) % sectorLayers.length), 4, joystick.sectorBoundsPaint);
+      sectorLayers[sector] = sectorLayer;
+      sectorLayerLeft[sector] = sectorLayerBounds.left;
+      sectorLayerTop[sector] = sectorLayerBounds.top;
+    }
+    return sectorLayers[sector];
+  }
+
+  /**
+   * @return the index of the sprite of the passed size among the sprites of a knob, the smallest
+   * size being one pixel narrower than the truncated knob diameter.
+   */
+  protected static int knobSpriteIndex(float knobRadius, int width, int height) {
+    int minSize = (int) (2 * knobRadius) - 1;
+    return (height - minSize) * NUMBER_OF_KNOB_SPRITE_SIZES + width - minSize;
+  }
+
+  protected Bitmap getKnobSprite(Bitmap knobSprites[], float knobRadius, int width, int height) {
+    if (width <= 0 || height <= 0)
+      return null;
+
+    int index = knobSpriteIndex(knobRadius, width, height);
+    if (knobSprites[index] == null)
+      knobSprites[index] = renderKnobSprite(width, height);
+    return knobSprites[index];
+  }
+
+  protected Bitmap renderKnobSprite(int width, int height) {
+    Bitmap knobSprite = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    // the sprite is opaque, the opacity is applied when it is blitted
+    joystick.knob.setAlpha(255);
+    joystick.knob.setBounds(0, 0, width, height);
+    joystick.knob.draw(new Canvas(knobSprite));
+    return knobSprite;
+  }
+}
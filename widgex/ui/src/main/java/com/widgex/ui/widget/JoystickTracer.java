@@ -0,0 +1,25 @@
+package com.widgex.ui.widget;
+
+/**
+ * receives the trace sections and counters of a {@link Joystick} input path, set using
+ * {@link Joystick#setTracer(JoystickTracer)}.<br>
+ * sections are begun and ended on the same thread and nest, counters may be set from any
+ * thread. {@link AndroidJoystickTracer} forwards everything to {@link android.os.Trace} so it
+ * shows up in systrace and perfetto, other implementations can record it on the JVM.
+ */
+public interface JoystickTracer {
+  /**
+   * begins a section named sectionName on the calling thread.
+   */
+  void beginSection(String sectionName);
+
+  /**
+   * ends the last section begun on the calling thread.
+   */
+  void endSection();
+
+  /**
+   * sets the counter named counterName to the passed value.
+   */
+  void setCounter(String counterName, long value);
+}
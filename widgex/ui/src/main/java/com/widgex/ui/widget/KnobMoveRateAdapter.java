@@ -0,0 +1,165 @@
+package com.widgex.ui.widget;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * computes the notification period of {@link Joystick#NOTIFICATION_POLICY_ADAPTIVE} from the
+ * velocity of the knob between two notifications.<br>
+ * the knob moves when its radial velocity (magnitude per second) or its angular velocity
+ * (degrees per second) reaches its threshold, then the period is the nominal notification rate
+ * divided by how many times the fastest velocity exceeds its threshold, down to minRate. while
+ * the knob is stationary the period doubles on every notification up to maxRate.
+ */
+public class KnobMoveRateAdapter {
+  /**
+   * the default shortest period in milliseconds, used for fast flicks.
+   */
+  public static final long MIN_DEFAULT_RATE = 8; // milliseconds
+  /**
+   * the default longest period in milliseconds, reached while the knob is held still.
+   */
+  public static final long MAX_DEFAULT_RATE = 250; // milliseconds
+  /**
+   * the default radial velocity in magnitude per second from which the knob is moving.
+   */
+  public static final float RADIAL_VELOCITY_DEFAULT_THRESHOLD = 0.5f;
+  /**
+   * the default angular velocity in degrees per second from which the knob is moving.
+   */
+  public static final float ANGULAR_VELOCITY_DEFAULT_THRESHOLD = 90.0f;
+
+  protected static final String ERROR_MSG_RATES_VALUE = "invalid adaptive notification rates, " +
+          "the rates should be > 0 and minRate should be <= maxRate";
+  protected static final String ERROR_MSG_VELOCITY_THRESHOLD_VALUE = "invalid velocity " +
+          "threshold, velocity thresholds should be > 0.0";
+
+  // set on the UI thread and read by the notifier thread, a pair updated in between two reads
+  // only affects one period
+  protected volatile long minRate;
+  protected volatile long maxRate;
+  protected volatile float radialVelocityThreshold;
+  protected volatile float angularVelocityThreshold;
+
+  // the state at the previous notification, owned by the notifier thread
+  protected final KnobState lastKnobState;
+  protected long period;
+  protected volatile boolean isBackedOff;
+
+  public KnobMoveRateAdapter() {
+    minRate = MIN_DEFAULT_RATE;
+    maxRate = MAX_DEFAULT_RATE;
+    radialVelocityThreshold = RADIAL_VELOCITY_DEFAULT_THRESHOLD;
+    angularVelocityThreshold = ANGULAR_VELOCITY_DEFAULT_THRESHOLD;
+    lastKnobState = new KnobState();
+    reset();
+  }
+
+  /**
+   * forgets the previous notification, called when the notifier starts.
+   */
+  public void reset() {
+    lastKnobState.sequence = -1;
+    period = 0;
+    isBackedOff = false;
+  }
+
+  /**
+   * @param knobState   the state read by this notification.
+   * @param nominalRate the notification rate in milliseconds used at the threshold velocities.
+   * @return the number of nanoseconds until the next notification.
+   */
+  public long nextPeriod(KnobState knobState, long nominalRate) {
+    long minPeriod = TimeUnit.MILLISECONDS.toNanos(minRate);
+    long maxPeriod = Math.max(minPeriod, TimeUnit.MILLISECONDS.toNanos(maxRate));
+    long nominalPeriod = Math.min(maxPeriod,
+            Math.max(minPeriod, TimeUnit.MILLISECONDS.toNanos(nominalRate)));
+
+    if (lastKnobState.sequence < 0) {
+      period = nominalPeriod;
+    } else {
+      float speedRatio = computeSpeedRatio(lastKnobState, knobState);
+      if (speedRatio >= 1)
+        period = Math.max(minPeriod, (long) (nominalPeriod / speedRatio));
+      else
+        period = Math.min(maxPeriod, Math.max(period, minPeriod) * 2);
+    }
+
+    lastKnobState.set(knobState);
+    isBackedOff = period > nominalPeriod;
+    return period;
+  }
+
+  /**
+   * @return how many times the radial or angular velocity between the passed states exceeds its
+   * threshold, whichever is the largest, 0 if no touch sample was published in between.
+   */
+  protected float computeSpeedRatio(KnobState lastKnobState, KnobState knobState) {
+    if (knobState.sequence == lastKnobState.sequence)
+      return 0;
+
+    float elapsedTime = Math.max(1, knobState.eventTime - lastKnobState.eventTime) / 1000.0f;
+    float radialVelocity = Math.abs(knobState.magnitude - lastKnobState.magnitude) / elapsedTime;
+    float speedRatio = radialVelocity / radialVelocityThreshold;
+
+    // the angle is meaningless while the knob is on the center
+    if (knobState.magnitude > 0 && lastKnobState.magnitude > 0) {
+      float angleChange = Math.abs(knobState.angle - lastKnobState.angle);
+      if (angleChange > Joystick.MAX_ANGLE / 2)
+        angleChange = Joystick.MAX_ANGLE - angleChange;
+      speedRatio = Math.max(speedRatio, angleChange / elapsedTime / angularVelocityThreshold);
+    }
+    return speedRatio;
+  }
+
+  /**
+   * @return true if the last period is longer than the nominal one, a touch sample should then
+   * wake the notifier up instead of waiting for the end of the period.
+   */
+  public boolean isBackedOff() {
+    return isBackedOff;
+  }
+
+  public long getMinRate() {
+    return minRate;
+  }
+
+  public long getMaxRate() {
+    return maxRate;
+  }
+
+  /**
+   * @param minRate the shortest period in milliseconds, used for fast flicks.
+   * @param maxRate the longest period in milliseconds, reached while the knob is held still.
+   */
+  public void setRates(long minRate, long maxRate) {
+    if (minRate <= 0 || minRate > maxRate)
+      throw new IllegalArgumentException(ERROR_MSG_RATES_VALUE +
+              ", passed values = " + minRate + ", " + maxRate);
+
+    this.minRate = minRate;
+    this.maxRate = maxRate;
+  }
+
+  public float getRadialVelocityThreshold() {
+    return radialVelocityThreshold;
+  }
+
+  public float getAngularVelocityThreshold() {
+    return angularVelocityThreshold;
+  }
+
+  /**
+   * @param radialVelocityThreshold  the magnitude change per second from which the knob moves.
+   * @param angularVelocityThreshold the angle change in degrees per second from which the knob
+   *                                 moves.
+   */
+  public void setVelocityThresholds(float radialVelocityThreshold,
+                                    float angularVelocityThreshold) {
+    if (!(radialVelocityThreshold > 0) || !(angularVelocityThreshold > 0))
+      throw new IllegalArgumentException(ERROR_MSG_VELOCITY_THRESHOLD_VALUE +
+              ", passed values = " + radialVelocityThreshold + ", " + angularVelocityThreshold);
+
+    this.radialVelocityThreshold = radialVelocityThreshold;
+    this.angularVelocityThreshold = angularVelocityThreshold;
+  }
+}
@@ -0,0 +1,223 @@
+package com.widgex.ui.widget;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * runs the periodic notification tasks of all the joysticks on one shared background thread,
+ * started lazily when the first task is scheduled.<br>
+ * each run is scheduled at the deadline of the previous run plus the returned period, measured
+ * with {@link System#nanoTime()}, so the time spent in the listeners does not delay the next
+ * runs. a task that falls more than a period behind skips the missed runs instead of bursting.
+ * the thread parks while no task is due and does not wake up at all while nothing is scheduled.
+ */
+public class KnobMoveScheduler {
+  protected static final String THREAD_NAME = "KnobMoveScheduler";
+  protected static final String ERROR_MSG_NULL_ARGUMENT = "passed parameter is null";
+  protected static final Entry[] NO_ENTRIES = new Entry[0];
+
+  protected static KnobMoveScheduler instance;
+
+  // copy on write, so runNow and the scheduler thread read it without locking
+  protected volatile Entry[] entries;
+  protected volatile Thread thread;
+  // guards the copies of entries and the start of the thread
+  private final Object entriesLock = new Object();
+
+  public KnobMoveScheduler() {
+    entries = NO_ENTRIES;
+  }
+
+  /**
+   * @return the scheduler shared by all the joysticks.
+   */
+  public static synchronized KnobMoveScheduler getInstance() {
+    if (instance == null)
+      instance = new KnobMoveScheduler();
+    return instance;
+  }
+
+  /**
+   * schedules the passed task to run as soon as possible and then every period it returns.<br>
+   * a task can be scheduled again after {@link #cancel(Task)}, its stop runs before the new start.
+   */
+  public void schedule(@NonNull Task task) {
+    if (task == null)
+      throw new NullPointerException(ERROR_MSG_NULL_ARGUMENT);
+
+    synchronized (entriesLock) {
+      Entry[] entries = new Entry[this.entries.length + 1];
+      System.arraycopy(this.entries, 0, entries, 0, this.entries.length);
+      entries[this.entries.length] = new Entry(task);
+      this.entries = entries;
+      if (thread == null) {
+        thread = new SchedulerThread();
+        thread.start();
+      }
+    }
+    LockSupport.unpark(thread);
+  }
+
+  /**
+   * stops running the passed task, its stop method is then called once on the scheduler thread
+   * if it has been started.
+   */
+  public void cancel(Task task) {
+    boolean isCancelled = false;
+    for (Entry entry : entries) {
+      if (entry.task == task && !entry.isCancelled) {
+        entry.isCancelled = true;
+        isCancelled = true;
+      }
+    }
+    if (isCancelled)
+      LockSupport.unpark(thread);
+  }
+
+  /**
+   * runs the passed task as soon as possible instead of at its next deadline, the next runs
+   * follow the period returned by this run.<br>
+   * this method does not lock, so it can be called on every touch event.
+   */
+  public void runNow(Task task) {
+    for (Entry entry : entries) {
+      if (entry.task == task && !entry.isCancelled) {
+        entry.isRunRequested = true;
+        LockSupport.unpark(thread);
+      }
+    }
+  }
+
+  /**
+   * @return true if the passed task is scheduled and not cancelled.
+   */
+  public boolean isScheduled(Task task) {
+    for (Entry entry : entries) {
+      if (entry.task == task && !entry.isCancelled)
+        return true;
+    }
+    return false;
+  }
+
+  /**
+   * runs the due tasks once.
+   *
+   * @return the number of nanoseconds until the next deadline, or -1 if no task has a deadline.
+   */
+  protected long runDueTasks() {
+    boolean hasDeadline = false;
+    long nextDeadline = 0;
+    for (Entry entry : entries) {
+      if (entry.isCancelled) {
+        if (entry.isStarted)
+          entry.task.stop();
+        remove(entry);
+        continue;
+      }
+
+      long now = System.nanoTime();
+      if (!entry.isStarted) {
+        entry.task.start();
+        entry.isStarted = true;
+        entry.isRunRequested = true;
+      }
+      if (entry.isRunRequested) {
+        entry.isRunRequested = false;
+        entry.isWaiting = false;
+        entry.deadline = now;
+      }
+
+      if (!entry.isWaiting && now - entry.deadline >= 0) {
+        long period = entry.task.run();
+        long lateness = System.nanoTime() - entry.deadline;
+        if (period < 0) {
+          entry.isWaiting = true;
+        } else if (period == 0) {
+          entry.deadline = System.nanoTime();
+        } else {
+          // the next deadline on the grid of the previous ones that is still in the future
+          entry.deadline += (lateness / period + 1) * period;
+        }
+      }
+
+      if (!entry.isWaiting && (!hasDeadline || entry.deadline - nextDeadline < 0)) {
+        nextDeadline = entry.deadline;
+        hasDeadline = true;
+      }
+    }
+
+    if (!hasDeadline)
+      return -1;
+    return Math.max(0, nextDeadline - System.nanoTime());
+  }
+
+  protected void remove(Entry entry) {
+    synchronized (entriesLock) {
+      int numberOfEntries = this.entries.length;
+      for (int i = 0; i < numberOfEntries; ++i) {
+        if (this.entries[i] != entry)
+          continue;
+
+        Entry[] entries = numberOfEntries == 1 ? NO_ENTRIES : new Entry[numberOfEntries - 1];
+        System.arraycopy(this.entries, 0, entries, 0, i);
+        System.arraycopy(this.entries, i + 1, entries, i, numberOfEntries - i - 1);
+        this.entries = entries;
+        return;
+      }
+    }
+  }
+
+  /**
+   * a periodic task, all its methods are called on the scheduler thread.
+   */
+  public interface Task {
+    /**
+     * called before the first run.
+     */
+    void start();
+
+    /**
+     * @return the number of nanoseconds from the deadline of this run to the next run, 0 to run
+     * again continuously, or a negative value to run again only on {@link #runNow(Task)}.
+     */
+    long run();
+
+    /**
+     * called once after the task is cancelled, if it has been started.
+     */
+    void stop();
+  }
+
+  protected static class Entry {
+    protected final Task task;
+    protected volatile boolean isCancelled;
+    protected volatile boolean isRunRequested;
+    // owned by the scheduler thread
+    protected boolean isStarted;
+    protected boolean isWaiting;
+    protected long deadline;
+
+    protected Entry(Task task) {
+      this.task = task;
+    }
+  }
+
+  protected class SchedulerThread extends Thread {
+    public SchedulerThread() {
+      super(THREAD_NAME);
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        long delay = runDueTasks();
+        if (delay < 0)
+          LockSupport.park(KnobMoveScheduler.this);
+        else if (delay > 0)
+          LockSupport.parkNanos(KnobMoveScheduler.this, delay);
+      }
+    }
+  }
+}
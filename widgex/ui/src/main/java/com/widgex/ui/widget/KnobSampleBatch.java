@@ -0,0 +1,146 @@
+package com.widgex.ui.widget;
+
+/**
+ * a batch of processed touch samples stored in parallel primitive arrays, sample i is
+ * (x[i], y[i], magnitude[i], angle[i], direction[i], eventTime[i]) for i in [0, size), ordered
+ * from the oldest to the newest.<br>
+ * the arrays are filled as a ring, so after {@link #add} sample i is at index
+ * (head + i) % capacity until {@link #unroll()} restores the order above, batches delivered to a
+ * {@link Joystick.OnKnobMoveBatchListener} are always unrolled.<br>
+ * the fields have the same meaning as the fields of {@link KnobState}.
+ */
+public class KnobSampleBatch {
+  /**
+   * the default number of samples a batch can hold.
+   */
+  public static final int DEFAULT_CAPACITY = 128;
+
+  public final float[] x;
+  public final float[] y;
+  public final float[] magnitude;
+  public final float[] angle;
+  public final int[] direction;
+  public final long[] eventTime;
+  /**
+   * the number of valid samples in the arrays.
+   */
+  public int size;
+  /**
+   * the index of the oldest sample, 0 unless the batch overflowed since the last unroll.
+   */
+  public int head;
+  /**
+   * the number of oldest samples discarded because the batch was full before it was delivered.
+   */
+  public long droppedCount;
+
+  public KnobSampleBatch(int capacity) {
+    x = new float[capacity];
+    y = new float[capacity];
+    magnitude = new float[capacity];
+    angle = new float[capacity];
+    direction = new int[capacity];
+    eventTime = new long[capacity];
+    size = 0;
+    head = 0;
+    droppedCount = 0;
+  }
+
+  public int getCapacity() {
+    return eventTime.length;
+  }
+
+  /**
+   * appends a sample in O(1), overwriting the oldest one if the batch is full.
+   */
+  public void add(float magnitude, float angle, int direction, float x, float y, long eventTime) {
+    int capacity = getCapacity();
+    int index = head + size;
+    if (index >= capacity)
+      index -= capacity;
+    if (size == capacity) {
+      // the slot of the oldest sample receives the newest one
+      ++head;
+      if (head == capacity)
+        head = 0;
+      ++droppedCount;
+    } else {
+      ++size;
+    }
+
+    this.x[index] = x;
+    this.y[index] = y;
+    this.magnitude[index] = magnitude;
+    this.angle[index] = angle;
+    this.direction[index] = direction;
+    this.eventTime[index] = eventTime;
+  }
+
+  /**
+   * rotates the arrays in place so the oldest sample is at index 0, only a batch that
+   * overflowed needs it.
+   */
+  public void unroll() {
+    if (head == 0)
+      return;
+
+    int capacity = getCapacity();
+    rotate(x, head, capacity);
+    rotate(y, head, capacity);
+    rotate(magnitude, head, capacity);
+    rotate(angle, head, capacity);
+    rotate(direction, head, capacity);
+    rotate(eventTime, head, capacity);
+    head = 0;
+  }
+
+  public void clear() {
+    size = 0;
+    head = 0;
+    droppedCount = 0;
+  }
+
+  // rotation to the left by distance as three reversals, so no scratch array is needed
+
+  protected static void rotate(float[] values, int distance, int length) {
+    reverse(values, 0, distance);
+    reverse(values, distance, length);
+    reverse(values, 0, length);
+  }
+
+  protected static void rotate(int[] values, int distance, int length) {
+    reverse(values, 0, distance);
+    reverse(values, distance, length);
+    reverse(values, 0, length);
+  }
+
+  protected static void rotate(long[] values, int distance, int length) {
+    reverse(values, 0, distance);
+    reverse(values, distance, length);
+    reverse(values, 0, length);
+  }
+
+  protected static void reverse(float[] values, int from, int to) {
+    for (int i = from, j = to - 1; i < j; ++i, --j) {
+      float value = values[i];
+      values[i] = values[j];
+      values[j] = value;
+    }
+  }
+
+  protected static void reverse(int[] values, int from, int to) {
+    for (int i = from, j = to - 1; i < j; ++i, --j) {
+      int value = values[i];
+      values[i] = values[j];
+      values[j] = value;
+    }
+  }
+
+  protected static void reverse(long[] values, int from, int to) {
+    for (int i = from, j = to - 1; i < j; ++i, --j) {
+      long value = values[i];
+      values[i] = values[j];
+      values[j] = value;
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package com.widgex.ui.widget;
+
+/**
+ * double buffer of {@link KnobSampleBatch}, the UI thread appends the samples to the filling
+ * batch and the notifier swaps it with the batch it delivered last time, so after construction
+ * no batch is ever allocated.<br>
+ * both operations are O(1) under the buffer lock, so the UI thread never waits for a listener,
+ * the swapped batch is unrolled by the notifier after it releases the lock.
+ */
+public class KnobSampleBatchBuffer {
+  // guards the swap, a private lock so no caller can hold the UI thread by locking the buffer
+  private final Object lock = new Object();
+  // guarded by lock
+  protected KnobSampleBatch fillingBatch;
+  protected KnobSampleBatch deliveredBatch;
+
+  public KnobSampleBatchBuffer(int capacity) {
+    fillingBatch = new KnobSampleBatch(capacity);
+    deliveredBatch = new KnobSampleBatch(capacity);
+  }
+
+  public void add(float magnitude, float angle, int direction, float x, float y,
+                  long eventTime) {
+    synchronized (lock) {
+      fillingBatch.add(magnitude, angle, direction, x, y, eventTime);
+    }
+  }
+
+  /**
+   * takes the samples added since the previous call, must be called from one thread at a time.
+   *
+   * @return the filled batch, which stays valid until the next call to this method.
+   */
+  public KnobSampleBatch swap() {
+    KnobSampleBatch filledBatch;
+    synchronized (lock) {
+      filledBatch = fillingBatch;
+      deliveredBatch.clear();
+      fillingBatch = deliveredBatch;
+      deliveredBatch = filledBatch;
+    }
+    // the UI thread only appends to the filling batch, so the filled one is owned by the caller
+    filledBatch.unroll();
+    return filledBatch;
+  }
+
+  public void clear() {
+    synchronized (lock) {
+      fillingBatch.clear();
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package com.widgex.ui.widget;
+
+/**
+ * a consistent snapshot of the state of a {@link Joystick} knob, all the fields of one snapshot
+ * always belong to the same processed touch sample.<br>
+ * instances are meant to be owned and reused by the reader, they are filled by
+ * {@link KnobStatePublisher#read(KnobState)} without any allocation.
+ */
+public class KnobState {
+  /**
+   * index of the magnitude in the float array filled by
+   * {@link KnobStatePublisher#read(float[], int)}.
+   */
+  public static final int MAGNITUDE_INDEX = 0;
+  /**
+   * index of the angle in the float array.
+   */
+  public static final int ANGLE_INDEX = 1;
+  /**
+   * index of the direction in the float array, stored as a float holding an exact integer.
+   */
+  public static final int DIRECTION_INDEX = 2;
+  /**
+   * index of the mapped x coordinate in the float array.
+   */
+  public static final int X_INDEX = 3;
+  /**
+   * index of the mapped y coordinate in the float array.
+   */
+  public static final int Y_INDEX = 4;
+  /**
+   * number of floats filled in the float array.
+   */
+  public static final int FLOAT_ARRAY_SIZE = 5;
+
+  /**
+   * the distance between the touch point and the joystick center, 0 at the center and 1 on
+   * the joystick border, it exceeds 1 when the touch point is outside the joystick.
+   */
+  public float magnitude;
+  /**
+   * the angle of the knob in degrees, in [0, 360).
+   */
+  public float angle;
+  /**
+   * the sector/direction of the knob, one of the DIRECTION_* constants of {@link Joystick}.
+   */
+  public int direction;
+  /**
+   * the x coordinate of the knob in the mapped [-1, 1] coordinate space.
+   */
+  public float x;
+  /**
+   * the y coordinate of the knob in the mapped [-1, 1] coordinate space, positive upward.
+   */
+  public float y;
+  /**
+   * the time of the touch event that produced this state, in the
+   * {@link android.os.SystemClock#uptimeMillis()} time base.
+   */
+  public long eventTime;
+  /**
+   * the {@link System#nanoTime()} when this state was published, 0 unless the metrics of the
+   * joystick are enabled.
+   */
+  public long processedTime;
+  /**
+   * the number of states published before this one, strictly increasing with every
+   * processed touch sample, so two snapshots with the same sequence are identical.
+   */
+  public long sequence;
+
+  public void set(KnobState knobState) {
+    this.magnitude = knobState.magnitude;
+    this.angle = knobState.angle;
+    this.direction = knobState.direction;
+    this.x = knobState.x;
+    this.y = knobState.y;
+    this.eventTime = knobState.eventTime;
+    this.processedTime = knobState.processedTime;
+    this.sequence = knobState.sequence;
+  }
+}
@@ -0,0 +1,109 @@
+package com.widgex.ui.widget;
+
+/**
+ * single writer, multiple readers publication point of the knob state, implemented as a
+ * sequence lock so that neither the writer nor the readers take a lock or allocate.<br>
+ * the writer makes the sequence odd before writing the fields and even again after, a reader
+ * copies the fields and retries if the sequence was odd or changed while copying, so a reader
+ * never observes the fields of two different touch samples.<br>
+ * all the fields are volatile so the accesses cannot be reordered around the sequence checks.
+ */
+public class KnobStatePublisher {
+  protected volatile long sequence;
+  protected volatile float magnitude;
+  protected volatile float angle;
+  protected volatile int direction;
+  protected volatile float x;
+  protected volatile float y;
+  protected volatile long eventTime;
+  protected volatile long processedTime;
+
+  public KnobStatePublisher() {
+    direction = Joystick.DIRECTION_CENTER;
+  }
+
+  /**
+   * publishes a new state, must only be called from one thread at a time (the UI thread).
+   */
+  public void publish(float magnitude, float angle, int direction, float x, float y,
+                      long eventTime) {
+    publish(magnitude, angle, direction, x, y, eventTime, 0);
+  }
+
+  /**
+   * publishes a new state with the {@link System#nanoTime()} it was processed at, must only be
+   * called from one thread at a time (the UI thread).
+   */
+  public void publish(float magnitude, float angle, int direction, float x, float y,
+                      long eventTime, long processedTime) {
+    long currentSequence = this.sequence;
+    this.sequence = currentSequence + 1;
+    this.magnitude = magnitude;
+    this.angle = angle;
+    this.direction = direction;
+    this.x = x;
+    this.y = y;
+    this.eventTime = eventTime;
+    this.processedTime = processedTime;
+    this.sequence = currentSequence + 2;
+  }
+
+  /**
+   * copies the last published state into the passed snapshot, safe to call from any thread.
+   *
+   * @return the sequence of the copied state.
+   */
+  public long read(KnobState knobState) {
+    long sequenceBefore;
+    long sequenceAfter;
+    do {
+      sequenceBefore = this.sequence;
+      while ((sequenceBefore & 1) != 0)
+        sequenceBefore = this.sequence;
+
+      knobState.magnitude = this.magnitude;
+      knobState.angle = this.angle;
+      knobState.direction = this.direction;
+      knobState.x = this.x;
+      knobState.y = this.y;
+      knobState.eventTime = this.eventTime;
+      knobState.processedTime = this.processedTime;
+      sequenceAfter = this.sequence;
+    } while (sequenceBefore != sequenceAfter);
+
+    knobState.sequence = sequenceBefore >>> 1;
+    return knobState.sequence;
+  }
+
+  /**
+   * copies the last published state into the passed array from offset, at the *_INDEX
+   * positions of {@link KnobState}, safe to call from any thread.
+   *
+   * @return the sequence of the copied state.
+   */
+  public long read(float[] state, int offset) {
+    long sequenceBefore;
+    long sequenceAfter;
+    do {
+      sequenceBefore = this.sequence;
+      while ((sequenceBefore & 1) != 0)
+        sequenceBefore = this.sequence;
+
+      state[offset + KnobState.MAGNITUDE_INDEX] = this.magnitude;
+      state[offset + KnobState.ANGLE_INDEX] = this.angle;
+      state[offset + KnobState.DIRECTION_INDEX] = this.direction;
+      state[offset + KnobState.X_INDEX] = this.x;
+      state[offset + KnobState.Y_INDEX] = this.y;
+      sequenceAfter = this.sequence;
+    } while (sequenceBefore != sequenceAfter);
+
+    return sequenceBefore >>> 1;
+  }
+
+  /**
+   * @return the sequence of the last published state.
+   */
+  public long getSequence() {
+    return sequence >>> 1;
+  }
+}
@@ -0,0 +1,169 @@
+package com.widgex.ui.widget;
+
+import android.os.Handler;
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * delivers the knob states notified by a {@link Joystick} to one listener on its own
+ * {@link Executor}, so a slow listener never delays the notifier or the other subscribers.<br>
+ * the notified states are queued in a bounded ring of preallocated snapshots, when the queue is
+ * full the oldest state is dropped and counted. a capacity of {@link #CONFLATING_CAPACITY} keeps
+ * only the latest state (latest wins).<br>
+ * the listener is called on the executor with a snapshot owned by the subscription, so it must
+ * be copied if it is needed after the call returns.
+ */
+public class KnobStateSubscription {
+  /**
+   * the queue capacity that conflates the states, only the latest one is delivered.
+   */
+  public static final int CONFLATING_CAPACITY = 1;
+
+  protected static final String ERROR_MSG_NULL_ARGUMENT = "passed parameter is null";
+  protected static final String ERROR_MSG_QUEUE_CAPACITY_VALUE = "invalid queueCapacity, " +
+          "queueCapacity value should be >= 1";
+
+  protected final Joystick.OnKnobStateListener onKnobStateListener;
+  protected final Executor executor;
+  protected final KnobState[] queue;
+  protected final Runnable deliverer;
+  // owned by the executor, passed to the listener
+  protected final KnobState deliveredKnobState;
+  // guards the queue, the subscription is handed to the callers so it is a public monitor
+  private final Object lock = new Object();
+  // guarded by lock
+  protected int head;
+  protected int size;
+  protected boolean isDelivering;
+  protected boolean isCancelled;
+  protected long droppedCount;
+
+  public KnobStateSubscription(@NonNull Joystick.OnKnobStateListener onKnobStateListener,
+                               @NonNull Executor executor, int queueCapacity) {
+    if (onKnobStateListener == null || executor == null)
+      throw new NullPointerException(ERROR_MSG_NULL_ARGUMENT);
+    if (queueCapacity < 1)
+      throw new IllegalArgumentException(ERROR_MSG_QUEUE_CAPACITY_VALUE +
+              ", passed value = " + queueCapacity);
+
+    this.onKnobStateListener = onKnobStateListener;
+    this.executor = executor;
+    queue = new KnobState[queueCapacity];
+    for (int i = 0; i < queueCapacity; ++i)
+      queue[i] = new KnobState();
+    deliveredKnobState = new KnobState();
+    deliverer = new Runnable() {
+      @Override
+      public void run() {
+        deliver();
+      }
+    };
+  }
+
+  /**
+   * @return an executor posting to the passed handler, to deliver on its {@link android.os.Looper}.
+   */
+  public static Executor handlerExecutor(@NonNull final Handler handler) {
+    if (handler == null)
+      throw new NullPointerException(ERROR_MSG_NULL_ARGUMENT);
+
+    return new Executor() {
+      @Override
+      public void execute(@NonNull Runnable runnable) {
+        handler.post(runnable);
+      }
+    };
+  }
+
+  /**
+   * queues a copy of the passed state and makes sure a delivery is pending on the executor,
+   * called on the notifier thread, it never waits for the listener.
+   */
+  public void offer(KnobState knobState) {
+    synchronized (lock) {
+      if (isCancelled)
+        return;
+
+      if (size == queue.length) {
+        head = (head + 1) % queue.length;
+        --size;
+        ++droppedCount;
+      }
+      queue[(head + size) % queue.length].set(knobState);
+      ++size;
+
+      if (isDelivering)
+        return;
+      isDelivering = true;
+    }
+
+    try {
+      executor.execute(deliverer);
+    } catch (RejectedExecutionException e) {
+      synchronized (lock) {
+        droppedCount += size;
+        size = 0;
+        isDelivering = false;
+      }
+    }
+  }
+
+  /**
+   * calls the listener with the queued states in order until the queue is empty, run on the
+   * executor.
+   */
+  protected void deliver() {
+    while (true) {
+      synchronized (lock) {
+        if (size == 0 || isCancelled) {
+          isDelivering = false;
+          return;
+        }
+
+        deliveredKnobState.set(queue[head]);
+        head = (head + 1) % queue.length;
+        --size;
+      }
+      onKnobStateListener.onKnobState(deliveredKnobState);
+    }
+  }
+
+  /**
+   * stops the deliveries, the queued states are discarded.
+   */
+  public void cancel() {
+    synchronized (lock) {
+      isCancelled = true;
+      size = 0;
+    }
+  }
+
+  public boolean isCancelled() {
+    synchronized (lock) {
+      return isCancelled;
+    }
+  }
+
+  /**
+   * @return the number of states dropped because the queue was full when they were notified.
+   */
+  public long getDroppedCount() {
+    synchronized (lock) {
+      return droppedCount;
+    }
+  }
+
+  public int getQueueCapacity() {
+    return queue.length;
+  }
+
+  public Joystick.OnKnobStateListener getOnKnobStateListener() {
+    return onKnobStateListener;
+  }
+
+  public Executor getExecutor() {
+    return executor;
+  }
+}
@@ -0,0 +1,164 @@
+package com.widgex.ui.widget;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * a fixed memory histogram of latencies in nanoseconds, recorded lock-free and allocation free
+ * from any thread.<br>
+ * the buckets are log-linear like an HDR histogram: every power of 2 is split into
+ * {@link #SUB_BUCKET_COUNT} equal buckets, so a recorded value is known within 1 / 32 of itself
+ * (3.1%) over the whole range, and values below {@link #SUB_BUCKET_COUNT} nanoseconds exactly.
+ * values beyond {@link #HIGHEST_TRACKABLE_VALUE} are counted in the last bucket.
+ */
+public class LatencyHistogram {
+  protected static final int SUB_BUCKET_BITS = 5;
+  /**
+   * the number of buckets every power of 2 is split into.
+   */
+  public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  // values are tracked up to 2^36 nanoseconds, about 68 seconds
+  protected static final int MAX_MAGNITUDE_BITS = 36;
+  /**
+   * the highest value in nanoseconds that is recorded in its own bucket.
+   */
+  public static final long HIGHEST_TRACKABLE_VALUE = (1L << MAX_MAGNITUDE_BITS) - 1;
+  /**
+   * the number of buckets.
+   */
+  public static final int BUCKET_COUNT = (MAX_MAGNITUDE_BITS - SUB_BUCKET_BITS + 1) *
+          SUB_BUCKET_COUNT;
+
+  protected static final String ERROR_MSG_PERCENTILE_VALUE = "invalid percentile, percentile " +
+          "value should be >= 0.0 and <= 100.0";
+
+  protected final AtomicLongArray counts;
+  protected final AtomicLong sum;
+  protected final AtomicLong max;
+
+  public LatencyHistogram() {
+    counts = new AtomicLongArray(BUCKET_COUNT);
+    sum = new AtomicLong();
+    max = new AtomicLong();
+  }
+
+  /**
+   * records one latency, negative values (clock skew between the time bases) are recorded as 0.
+   */
+  public void record(long nanos) {
+    if (nanos < 0)
+      nanos = 0;
+    else if (nanos > HIGHEST_TRACKABLE_VALUE)
+      nanos = HIGHEST_TRACKABLE_VALUE;
+
+    counts.incrementAndGet(bucketIndex(nanos));
+    sum.addAndGet(nanos);
+    long currentMax = max.get();
+    while (nanos > currentMax && !max.compareAndSet(currentMax, nanos))
+      currentMax = max.get();
+  }
+
+  /**
+   * clears the recorded values, the values recorded concurrently may be kept or cleared.
+   */
+  public void reset() {
+    for (int i = 0; i < BUCKET_COUNT; ++i)
+      counts.set(i, 0);
+    sum.set(0);
+    max.set(0);
+  }
+
+  /**
+   * @return a copy of the recorded values, values recorded while copying may be missing from
+   * it but its counts always add up to its total count.
+   */
+  public Snapshot snapshot() {
+    long[] counts = new long[BUCKET_COUNT];
+    long totalCount = 0;
+    for (int i = 0; i < BUCKET_COUNT; ++i) {
+      counts[i] = this.counts.get(i);
+      totalCount += counts[i];
+    }
+    return new Snapshot(counts, totalCount, sum.get(), max.get());
+  }
+
+  protected static int bucketIndex(long value) {
+    int magnitude = 63 - Long.numberOfLeadingZeros(value);
+    if (magnitude < SUB_BUCKET_BITS)
+      return (int) value;
+
+    int shift = magnitude - SUB_BUCKET_BITS;
+    // the top SUB_BUCKET_BITS + 1 bits of the value, in [SUB_BUCKET_COUNT, 2 * SUB_BUCKET_COUNT)
+    int subBucket = (int) (value >>> shift);
+    return (shift + 1) * SUB_BUCKET_COUNT + subBucket - SUB_BUCKET_COUNT;
+  }
+
+  /**
+   * @return the highest value recorded in the bucket at the passed index.
+   */
+  protected static long bucketHighestValue(int index) {
+    int shift = index / SUB_BUCKET_COUNT - 1;
+    if (shift < 0)
+      return index;
+
+    long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  /**
+   * an immutable copy of the recorded latencies.
+   */
+  public static class Snapshot {
+    protected final long[] counts;
+    protected final long totalCount;
+    protected final long sum;
+    protected final long max;
+
+    protected Snapshot(long[] counts, long totalCount, long sum, long max) {
+      this.counts = counts;
+      this.totalCount = totalCount;
+      this.sum = sum;
+      this.max = max;
+    }
+
+    public long getTotalCount() {
+      return totalCount;
+    }
+
+    /**
+     * @return the largest recorded value in nanoseconds, exact.
+     */
+    public long getMax() {
+      return max;
+    }
+
+    /**
+     * @return the mean of the recorded values in nanoseconds, 0 if nothing was recorded.
+     */
+    public double getMean() {
+      return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * @param percentile in [0, 100], e.g. 99 for the p99 latency.
+     * @return the value in nanoseconds that percentile of the recorded values are lower than
+     * or equal to, within the precision of the buckets, 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+      if (!(percentile >= 0.0 && percentile <= 100.0))
+        throw new IllegalArgumentException(ERROR_MSG_PERCENTILE_VALUE +
+                ", passed value = " + percentile);
+      if (totalCount == 0)
+        return 0;
+
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+      long cumulativeCount = 0;
+      for (int i = 0; i < counts.length; ++i) {
+        cumulativeCount += counts[i];
+        if (cumulativeCount >= rank)
+          return Math.min(bucketHighestValue(i), max);
+      }
+      return max;
+    }
+  }
+}
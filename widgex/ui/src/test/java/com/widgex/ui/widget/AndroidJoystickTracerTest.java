@@ -0,0 +1,42 @@
+package com.widgex.ui.widget;
+
+import com.widgex.ui.BuildConfig;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23, packageName = "com.widgex.ui")
+public class AndroidJoystickTracerTest {
+  @Test
+  public void testPrefixedCounterNames() {
+    AndroidJoystickTracer tracer = new AndroidJoystickTracer("left");
+
+    // the counters of the joystick are named once, not on every update
+    String magnitudeCounterName = tracer.getPrefixedCounterName(Joystick.TRACE_COUNTER_MAGNITUDE);
+    assertEquals("left#" + Joystick.TRACE_COUNTER_MAGNITUDE, magnitudeCounterName);
+    assertSame(magnitudeCounterName,
+            tracer.getPrefixedCounterName(Joystick.TRACE_COUNTER_MAGNITUDE));
+    assertEquals("left#" + Joystick.TRACE_COUNTER_DIRECTION,
+            tracer.getPrefixedCounterName(Joystick.TRACE_COUNTER_DIRECTION));
+    assertEquals("left#" + Joystick.TRACE_COUNTER_NOTIFIER_QUEUE_DEPTH,
+            tracer.getPrefixedCounterName(Joystick.TRACE_COUNTER_NOTIFIER_QUEUE_DEPTH));
+
+    assertEquals("left#custom", tracer.getPrefixedCounterName("custom"));
+  }
+
+  @Test
+  public void testCountersDisabledBelowApi29() {
+    AndroidJoystickTracer tracer = new AndroidJoystickTracer();
+    tracer.beginSection(Joystick.TRACE_SECTION_TOUCH_EVENT);
+    tracer.setCounter(Joystick.TRACE_COUNTER_MAGNITUDE, 500);
+    tracer.endSection();
+    assertFalse(tracer.isEnabled);
+  }
+}
@@ -0,0 +1,59 @@
+package com.widgex.ui.widget;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class JoystickControllerTest {
+  @Test
+  public void testReadConsistentCut() throws Exception {
+    final KnobStatePublisher leftPublisher = new KnobStatePublisher();
+    final KnobStatePublisher rightPublisher = new KnobStatePublisher();
+    final int NUMBER_OF_SAMPLES = 200000;
+    // the left stick is always published before the right one, like two sticks moved together
+    Thread writer = new Thread() {
+      @Override
+      public void run() {
+        for (int i = 1; i <= NUMBER_OF_SAMPLES; ++i) {
+          leftPublisher.publish(i, i, i, i, i, i);
+          rightPublisher.publish(i, i, i, i, i, i);
+        }
+      }
+    };
+
+    KnobStatePublisher[] knobStatePublishers = {leftPublisher, rightPublisher};
+    KnobState[] knobStates = {new KnobState(), new KnobState()};
+    writer.start();
+    while (writer.isAlive()) {
+      if (!JoystickController.readConsistentCut(knobStatePublishers, knobStates))
+        continue;
+      long left = knobStates[0].eventTime;
+      long right = knobStates[1].eventTime;
+      assertTrue("inconsistent cut, left = " + left + ", right = " + right,
+              left == right || left == right + 1);
+    }
+    writer.join();
+
+    assertTrue(JoystickController.readConsistentCut(knobStatePublishers, knobStates));
+    assertEquals(NUMBER_OF_SAMPLES, knobStates[0].sequence);
+    assertEquals(NUMBER_OF_SAMPLES, knobStates[1].sequence);
+  }
+
+  @Test
+  public void testControllerStateSet() {
+    ControllerState controllerState = new ControllerState();
+    controllerState.setNumberOfSticks(2);
+    controllerState.version = 3;
+    controllerState.tickTime = 48;
+    controllerState.knobStates[1].sequence = 7;
+
+    ControllerState copy = new ControllerState();
+    copy.set(controllerState);
+    assertEquals(2, copy.getNumberOfSticks());
+    assertEquals(3, copy.version);
+    assertEquals(48, copy.tickTime);
+    assertEquals(7, copy.knobStates[1].sequence);
+    assertTrue(copy.knobStates[1] != controllerState.knobStates[1]);
+  }
+}
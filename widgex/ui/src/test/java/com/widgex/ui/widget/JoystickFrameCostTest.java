@@ -0,0 +1,224 @@
+package com.widgex.ui.widget;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.widgex.ui.BuildConfig;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * drives a joystick through measure, layout, touch events and drawing on the JVM and checks
+ * that the steady state per event and per frame costs do not regress: no allocation and a
+ * bounded number of draw operations.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23, packageName = "com.widgex.ui")
+public class JoystickFrameCostTest {
+  private static final int DIMENSION = 300;
+  private static final int NUMBER_OF_EVENTS = 1000;
+  private static final int MEASUREMENT_ROUNDS = 3;
+  // allocations are at least 16 bytes, so this is less than one object per 64 events and
+  // leaves room for the measurement itself
+  private static final long ALLOCATION_TOLERANCE = 256;
+  // the background and the knob are shape drawables, each draws a fill and a stroke
+  // background fill and stroke, inner circle, two sector bounds and the knob fill and stroke
+  private static final int MAX_DRAW_OPS_PER_FRAME = 7;
+  // background fill and stroke, idle layer, sector layer and knob sprite
+  private static final int MAX_CACHED_DRAW_OPS_PER_FRAME = 5;
+
+  // resolved once, ManagementFactory allocates on every lookup
+  private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+  private Joystick joystick;
+  private MotionEvent[] moveEvents;
+  private RecordingCanvas canvas;
+
+  @Before
+  public void setUp() throws Exception {
+    joystick = new Joystick(RuntimeEnvironment.application);
+    joystick.setLayoutParams(new ViewGroup.LayoutParams(DIMENSION, DIMENSION));
+    joystick.setOnKnobMoveNotificationPolicy(Joystick.NOTIFICATION_POLICY_NONE);
+    int measureSpec = View.MeasureSpec.makeMeasureSpec(DIMENSION, View.MeasureSpec.EXACTLY);
+    joystick.measure(measureSpec, measureSpec);
+    joystick.layout(0, 0, DIMENSION, DIMENSION);
+    assertEquals((float) DIMENSION, joystick.getDimension());
+
+    // a circle around the center crossing every sector, half inside and half beyond the rim
+    long downTime = SystemClock.uptimeMillis();
+    moveEvents = new MotionEvent[64];
+    for (int i = 0; i < moveEvents.length; ++i) {
+      double angle = 2 * Math.PI * i / moveEvents.length;
+      float distance = DIMENSION * (i % 2 == 0 ? 0.4f : 0.7f);
+      moveEvents[i] = MotionEvent.obtain(downTime, downTime + 8 * (i + 1), MotionEvent.ACTION_MOVE,
+              DIMENSION / 2 + distance * (float) Math.cos(angle),
+              DIMENSION / 2 - distance * (float) Math.sin(angle), 0);
+    }
+    canvas = new RecordingCanvas();
+  }
+
+  private static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN)
+            .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static void assumeAllocationCounting() {
+    Assume.assumeTrue(THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean &&
+            ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).isThreadAllocatedMemoryEnabled());
+  }
+
+  /**
+   * @return the fewest bytes allocated by the passed runnable in a few rounds. an allocation of
+   * the steady state shows up in every round, while the compiler of the JVM allocates now and
+   * then when it compiles or deoptimizes the code under test.
+   */
+  private static long measureAllocatedBytes(Runnable runnable) {
+    long minAllocatedBytes = Long.MAX_VALUE;
+    for (int i = 0; i < MEASUREMENT_ROUNDS; ++i) {
+      long allocatedBytes = allocatedBytes();
+      runnable.run();
+      minAllocatedBytes = Math.min(minAllocatedBytes, allocatedBytes() - allocatedBytes);
+    }
+    return minAllocatedBytes;
+  }
+
+  private void press() {
+    MotionEvent down = MotionEvent.obtain(0, 0, MotionEvent.ACTION_DOWN,
+            DIMENSION / 2, DIMENSION / 2, 0);
+    joystick.onTouchEvent(down);
+    down.recycle();
+    assertTrue(joystick.isActive());
+  }
+
+  private void move(int numberOfEvents) {
+    for (int i = 0; i < numberOfEvents; ++i)
+      joystick.onTouchEvent(moveEvents[i % moveEvents.length]);
+  }
+
+  private void moveAndDraw(int numberOfEvents) {
+    for (int i = 0; i < numberOfEvents; ++i) {
+      joystick.onTouchEvent(moveEvents[i % moveEvents.length]);
+      joystick.draw(canvas);
+    }
+  }
+
+  @Test
+  public void testMoveDoesNotAllocate() throws Exception {
+    assumeAllocationCounting();
+    press();
+    // warm up, anything lazily allocated is allocated here
+    move(NUMBER_OF_EVENTS);
+
+    long allocatedBytes = measureAllocatedBytes(new Runnable() {
+      @Override
+      public void run() {
+        move(NUMBER_OF_EVENTS);
+      }
+    });
+    assertTrue("allocated " + allocatedBytes + " bytes for " + NUMBER_OF_EVENTS + " moves",
+            allocatedBytes < ALLOCATION_TOLERANCE);
+  }
+
+  @Test
+  public void testDrawDoesNotAllocate() throws Exception {
+    assumeAllocationCounting();
+    press();
+    moveAndDraw(NUMBER_OF_EVENTS);
+
+    long allocatedBytes = measureAllocatedBytes(new Runnable() {
+      @Override
+      public void run() {
+        moveAndDraw(NUMBER_OF_EVENTS);
+      }
+    });
+    assertTrue("allocated " + allocatedBytes + " bytes for " + NUMBER_OF_EVENTS + " frames",
+            allocatedBytes < ALLOCATION_TOLERANCE);
+  }
+
+  @Test
+  public void testCachedDrawDoesNotAllocate() throws Exception {
+    assumeAllocationCounting();
+    joystick.setRenderCacheEnabled(true);
+    press();
+    moveAndDraw(NUMBER_OF_EVENTS);
+
+    long allocatedBytes = measureAllocatedBytes(new Runnable() {
+      @Override
+      public void run() {
+        moveAndDraw(NUMBER_OF_EVENTS);
+      }
+    });
+    assertTrue("allocated " + allocatedBytes + " bytes for " + NUMBER_OF_EVENTS + " frames",
+            allocatedBytes < ALLOCATION_TOLERANCE);
+  }
+
+  @Test
+  public void testRemeasureDoesNotAllocate() throws Exception {
+    assumeAllocationCounting();
+    final int measureSpec = View.MeasureSpec.makeMeasureSpec(DIMENSION, View.MeasureSpec.EXACTLY);
+    for (int i = 0; i < NUMBER_OF_EVENTS; ++i)
+      joystick.onMeasure(measureSpec, measureSpec);
+
+    long allocatedBytes = measureAllocatedBytes(new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < NUMBER_OF_EVENTS; ++i)
+          joystick.onMeasure(measureSpec, measureSpec);
+      }
+    });
+    assertTrue("allocated " + allocatedBytes + " bytes for " + NUMBER_OF_EVENTS + " measures",
+            allocatedBytes < ALLOCATION_TOLERANCE);
+  }
+
+  @Test
+  public void testDrawOpsPerFrame() throws Exception {
+    joystick.draw(canvas);
+    assertTrue("idle frame: " + canvas.getDrawOpCount() + " draw ops",
+            canvas.getDrawOpCount() <= MAX_DRAW_OPS_PER_FRAME);
+
+    press();
+    canvas.reset();
+    joystick.draw(canvas);
+    assertTrue("centered frame: " + canvas.getDrawOpCount() + " draw ops",
+            canvas.getDrawOpCount() <= MAX_DRAW_OPS_PER_FRAME);
+
+    for (MotionEvent moveEvent : moveEvents) {
+      joystick.onTouchEvent(moveEvent);
+      canvas.reset();
+      joystick.draw(canvas);
+      assertTrue("active frame: " + canvas.getDrawOpCount() + " draw ops",
+              canvas.getDrawOpCount() <= MAX_DRAW_OPS_PER_FRAME);
+    }
+  }
+
+  @Test
+  public void testCachedDrawOpsPerFrame() throws Exception {
+    joystick.setRenderCacheEnabled(true);
+    press();
+    for (MotionEvent moveEvent : moveEvents) {
+      joystick.onTouchEvent(moveEvent);
+      canvas.reset();
+      joystick.draw(canvas);
+      assertTrue("cached frame: " + canvas.getDrawOpCount() + " draw ops",
+              canvas.getDrawOpCount() <= MAX_CACHED_DRAW_OPS_PER_FRAME);
+      // the moves never reach the center, so the inner circle, the bounds of the sector and the
+      // knob are blitted, only the background is rasterized in the frame
+      assertTrue(joystick.direction != Joystick.DIRECTION_CENTER);
+      assertEquals(3, canvas.getDrawBitmapCount());
+    }
+  }
+}
@@ -0,0 +1,225 @@
+package com.widgex.ui.widget;
+
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.widgex.ui.BuildConfig;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * drives {@link Joystick#NOTIFICATION_POLICY_FRAME} with the Choreographer of the main looper,
+ * one frame every FRAME_INTERVAL milliseconds.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23, packageName = "com.widgex.ui")
+public class JoystickFrameNotifierTest {
+  private static final int DIMENSION = 300;
+  private static final int FRAME_INTERVAL = 16;
+
+  private Joystick joystick;
+  private int numberOfNotifications;
+  private Joystick.OnKnobMoveListener countingListener;
+  private int numberOfBatches;
+  private int numberOfSamples;
+  private Joystick.OnKnobMoveBatchListener countingBatchListener;
+
+  @Before
+  public void setUp() throws Exception {
+    // without a delay the frame callback posted by a frame would run in the same frame
+    ShadowChoreographer.setPostFrameCallbackDelay(FRAME_INTERVAL);
+    joystick = new Joystick(RuntimeEnvironment.application);
+    joystick.setLayoutParams(new ViewGroup.LayoutParams(DIMENSION, DIMENSION));
+    int measureSpec = View.MeasureSpec.makeMeasureSpec(DIMENSION, View.MeasureSpec.EXACTLY);
+    joystick.measure(measureSpec, measureSpec);
+    joystick.layout(0, 0, DIMENSION, DIMENSION);
+    joystick.setOnKnobMoveNotificationPolicy(Joystick.NOTIFICATION_POLICY_FRAME);
+
+    numberOfNotifications = 0;
+    countingListener = new Joystick.OnKnobMoveListener() {
+      @Override
+      public void onKnobMove(float magnitude, float angle, int direction) {
+        ++numberOfNotifications;
+      }
+    };
+    numberOfBatches = 0;
+    numberOfSamples = 0;
+    countingBatchListener = new Joystick.OnKnobMoveBatchListener() {
+      @Override
+      public void onKnobMoveBatch(KnobSampleBatch knobSampleBatch) {
+        ++numberOfBatches;
+        numberOfSamples += knobSampleBatch.size;
+        for (int i = 1; i < knobSampleBatch.size; ++i)
+          assertTrue(knobSampleBatch.eventTime[i - 1] < knobSampleBatch.eventTime[i]);
+      }
+    };
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    ShadowChoreographer.setPostFrameCallbackDelay(0);
+  }
+
+  private void touch(int action, float x, float y) {
+    MotionEvent event = MotionEvent.obtain(0, 0, action, x, y, 0);
+    joystick.onTouchEvent(event);
+    event.recycle();
+  }
+
+  /**
+   * moves the knob with historySize samples batched by the system before the current one.
+   */
+  private void moveWithHistory(long eventTime, int historySize) {
+    MotionEvent event = MotionEvent.obtain(0, eventTime - historySize, MotionEvent.ACTION_MOVE,
+            0, 0, 0);
+    for (int i = 1; i <= historySize; ++i)
+      event.addBatch(eventTime - historySize + i, DIMENSION * i / historySize, DIMENSION / 2,
+              1, 1, 0);
+    joystick.onTouchEvent(event);
+    event.recycle();
+  }
+
+  private void nextFrame() {
+    ShadowLooper.idleMainLooper(FRAME_INTERVAL);
+  }
+
+  @Test
+  public void testNotifiesOncePerFrame() throws Exception {
+    joystick.setOnKnobMoveListener(countingListener);
+    touch(MotionEvent.ACTION_DOWN, DIMENSION / 2, DIMENSION / 2);
+    assertEquals(0, numberOfNotifications);
+
+    nextFrame();
+    assertEquals(1, numberOfNotifications);
+    touch(MotionEvent.ACTION_MOVE, DIMENSION, DIMENSION / 2);
+    touch(MotionEvent.ACTION_MOVE, DIMENSION, 0);
+    nextFrame();
+    assertEquals(2, numberOfNotifications);
+    // the held knob is notified on every frame unless notifying on change only
+    nextFrame();
+    assertEquals(3, numberOfNotifications);
+
+    // the released state is delivered at once, then the frames stop
+    touch(MotionEvent.ACTION_UP, DIMENSION, 0);
+    assertEquals(4, numberOfNotifications);
+    assertFalse(joystick.isKnobMoveNotifierRunning());
+    nextFrame();
+    nextFrame();
+    assertEquals(4, numberOfNotifications);
+  }
+
+  @Test
+  public void testListenerSetDuringGesture() throws Exception {
+    touch(MotionEvent.ACTION_DOWN, DIMENSION / 2, DIMENSION / 2);
+    nextFrame();
+    nextFrame();
+
+    joystick.setOnKnobMoveListener(countingListener);
+    touch(MotionEvent.ACTION_MOVE, DIMENSION, DIMENSION / 2);
+    nextFrame();
+    assertEquals(1, numberOfNotifications);
+    nextFrame();
+    assertEquals(2, numberOfNotifications);
+
+    touch(MotionEvent.ACTION_UP, DIMENSION, DIMENSION / 2);
+    assertEquals(3, numberOfNotifications);
+  }
+
+  @Test
+  public void testBatchDeliversHistory() throws Exception {
+    joystick.setOnKnobMoveBatchListener(countingBatchListener);
+    touch(MotionEvent.ACTION_DOWN, DIMENSION / 2, DIMENSION / 2);
+    moveWithHistory(10, 3);
+    nextFrame();
+    // the press, the 3 historical samples and the current one
+    assertEquals(1, numberOfBatches);
+    assertEquals(5, numberOfSamples);
+
+    nextFrame();
+    assertEquals(1, numberOfBatches);
+    touch(MotionEvent.ACTION_UP, DIMENSION, DIMENSION / 2);
+    assertEquals(2, numberOfBatches);
+    assertEquals(6, numberOfSamples);
+  }
+
+  @Test
+  public void testBatchNeverDeliveredWithoutNotifier() throws Exception {
+    joystick.setOnKnobMoveBatchListener(countingBatchListener);
+    joystick.setOnKnobMoveNotificationPolicy(Joystick.NOTIFICATION_POLICY_NONE);
+    touch(MotionEvent.ACTION_DOWN, DIMENSION / 2, DIMENSION / 2);
+    moveWithHistory(10, 3);
+    nextFrame();
+    touch(MotionEvent.ACTION_UP, DIMENSION, DIMENSION / 2);
+    nextFrame();
+    assertEquals(0, numberOfBatches);
+
+    // nothing was collected in the meantime
+    joystick.setOnKnobMoveNotificationPolicy(Joystick.NOTIFICATION_POLICY_FRAME);
+    touch(MotionEvent.ACTION_DOWN, DIMENSION / 2, DIMENSION / 2);
+    nextFrame();
+    assertEquals(1, numberOfBatches);
+    assertEquals(1, numberOfSamples);
+  }
+
+  @Test
+  public void testPolicyChangedFromRateDuringGesture() throws Exception {
+    final List<Float> magnitudes = Collections.synchronizedList(new ArrayList<Float>());
+    final Semaphore notifications = new Semaphore(0);
+    final AtomicInteger numberOfRunningListeners = new AtomicInteger();
+    final AtomicBoolean isNotifiedConcurrently = new AtomicBoolean();
+    joystick.setOnKnobMoveListener(new Joystick.OnKnobMoveListener() {
+      @Override
+      public void onKnobMove(float magnitude, float angle, int direction) {
+        if (numberOfRunningListeners.incrementAndGet() > 1)
+          isNotifiedConcurrently.set(true);
+        magnitudes.add(magnitude);
+        numberOfRunningListeners.decrementAndGet();
+        notifications.release();
+      }
+    });
+    // the scheduled notifier runs once when it starts and then not before the test ends
+    joystick.setOnKnobMoveNotificationPolicy(Joystick.NOTIFICATION_POLICY_RATE);
+    joystick.setOnKnobMoveNotificationRate(TimeUnit.MINUTES.toMillis(10));
+    touch(MotionEvent.ACTION_DOWN, DIMENSION, DIMENSION / 2);
+    assertTrue(notifications.tryAcquire(5, TimeUnit.SECONDS));
+    touch(MotionEvent.ACTION_MOVE, DIMENSION, 0);
+
+    // the stopped notifier does not notify the moved knob as if it was released, the frame
+    // notifier delivers it on the next frame
+    joystick.setOnKnobMoveNotificationPolicy(Joystick.NOTIFICATION_POLICY_FRAME);
+    Thread.sleep(50);
+    assertFalse(KnobMoveScheduler.getInstance().isScheduled(joystick.onKnobMoveNotifier));
+    assertEquals(1, magnitudes.size());
+    nextFrame();
+    assertEquals(2, magnitudes.size());
+
+    touch(MotionEvent.ACTION_UP, DIMENSION, 0);
+    Thread.sleep(50);
+    assertEquals(3, magnitudes.size());
+    assertTrue(magnitudes.get(0) > 0);
+    assertTrue(magnitudes.get(1) > 0);
+    assertEquals(0f, magnitudes.get(2));
+    assertFalse(isNotifiedConcurrently.get());
+  }
+}
@@ -0,0 +1,218 @@
+package com.widgex.ui.widget;
+
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.widgex.ui.BuildConfig;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * two joysticks side by side with a gap between them, the touch events are delivered the way
+ * ViewGroup.dispatchTouchEvent does: through onInterceptTouchEvent while a child has the
+ * gesture, then to onTouchEvent once the layout has it.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23, packageName = "com.widgex.ui")
+public class JoystickLayoutTest {
+  private static final int DIMENSION = 300;
+
+  private JoystickLayout joystickLayout;
+  private Joystick leftJoystick;
+  private Joystick rightJoystick;
+
+  @Before
+  public void setUp() throws Exception {
+    joystickLayout = new JoystickLayout(RuntimeEnvironment.application);
+    joystickLayout.setOnKnobMoveNotificationPolicy(Joystick.NOTIFICATION_POLICY_NONE);
+    leftJoystick = addJoystick(0);
+    rightJoystick = addJoystick(2 * DIMENSION);
+    joystickLayout.layout(0, 0, 3 * DIMENSION, DIMENSION);
+  }
+
+  private Joystick addJoystick(int left) {
+    Joystick joystick = new Joystick(RuntimeEnvironment.application);
+    joystickLayout.addView(joystick, new FrameLayout.LayoutParams(DIMENSION, DIMENSION));
+    int measureSpec = View.MeasureSpec.makeMeasureSpec(DIMENSION, View.MeasureSpec.EXACTLY);
+    joystick.measure(measureSpec, measureSpec);
+    joystick.layout(left, 0, left + DIMENSION, DIMENSION);
+    return joystick;
+  }
+
+  /**
+   * @param pointers the id, x and y of every pointer down, in pointer index order.
+   */
+  private static MotionEvent obtain(int action, int actionIndex, float[]... pointers) {
+    MotionEvent.PointerProperties[] pointerProperties =
+            new MotionEvent.PointerProperties[pointers.length];
+    MotionEvent.PointerCoords[] pointerCoords = new MotionEvent.PointerCoords[pointers.length];
+    for (int i = 0; i < pointers.length; ++i) {
+      pointerProperties[i] = new MotionEvent.PointerProperties();
+      pointerProperties[i].id = (int) pointers[i][0];
+      pointerCoords[i] = new MotionEvent.PointerCoords();
+      pointerCoords[i].x = pointers[i][1];
+      pointerCoords[i].y = pointers[i][2];
+      pointerCoords[i].pressure = 1;
+      pointerCoords[i].size = 1;
+    }
+    return MotionEvent.obtain(0, 0, action | (actionIndex << MotionEvent.ACTION_POINTER_INDEX_SHIFT),
+            pointers.length, pointerProperties, pointerCoords, 0, 0, 1, 1, 0, 0, 0, 0);
+  }
+
+  private static float[] pointer(int id, float x, float y) {
+    return new float[]{id, x, y};
+  }
+
+  private boolean intercept(MotionEvent event) {
+    boolean isIntercepted = joystickLayout.onInterceptTouchEvent(event);
+    event.recycle();
+    return isIntercepted;
+  }
+
+  private void touch(MotionEvent event) {
+    assertTrue(joystickLayout.onTouchEvent(event));
+    event.recycle();
+  }
+
+  @Test
+  public void testInterceptsOnlyOverJoysticks() {
+    assertFalse(intercept(obtain(MotionEvent.ACTION_DOWN, 0, pointer(0, 450, 150))));
+    assertFalse(intercept(obtain(MotionEvent.ACTION_MOVE, 0, pointer(0, 460, 150))));
+    assertFalse(intercept(obtain(MotionEvent.ACTION_POINTER_DOWN, 1,
+            pointer(0, 460, 150), pointer(1, 500, 10))));
+    assertFalse(leftJoystick.isActive());
+    assertFalse(rightJoystick.isActive());
+
+    assertTrue(intercept(obtain(MotionEvent.ACTION_DOWN, 0, pointer(0, 150, 150))));
+
+    rightJoystick.setVisibility(View.INVISIBLE);
+    assertFalse(intercept(obtain(MotionEvent.ACTION_DOWN, 0, pointer(0, 750, 150))));
+  }
+
+  @Test
+  public void testPointerDownInterceptedFromChild() {
+    // the first pointer went down between the joysticks, on another child
+    assertFalse(intercept(obtain(MotionEvent.ACTION_DOWN, 0, pointer(0, 450, 150))));
+
+    // the intercepted event does not reach onTouchEvent, so the knob is pressed by intercepting
+    assertTrue(intercept(obtain(MotionEvent.ACTION_POINTER_DOWN, 1,
+            pointer(0, 450, 150), pointer(1, 750, 150))));
+    assertTrue(rightJoystick.isActive());
+    assertEquals(1, rightJoystick.getActivePointerId());
+
+    touch(obtain(MotionEvent.ACTION_MOVE, 0, pointer(0, 450, 150), pointer(1, 800, 100)));
+    assertEquals(200f, rightJoystick.touchCoordinates.x);
+    assertEquals(100f, rightJoystick.touchCoordinates.y);
+
+    touch(obtain(MotionEvent.ACTION_POINTER_UP, 1, pointer(0, 450, 150), pointer(1, 800, 100)));
+    assertFalse(rightJoystick.isActive());
+  }
+
+  @Test
+  public void testRoutesPointersToJoysticks() {
+    assertTrue(intercept(obtain(MotionEvent.ACTION_DOWN, 0, pointer(3, 150, 150))));
+    touch(obtain(MotionEvent.ACTION_DOWN, 0, pointer(3, 150, 150)));
+    touch(obtain(MotionEvent.ACTION_POINTER_DOWN, 1, pointer(3, 150, 150), pointer(8, 750, 150)));
+    assertEquals(3, leftJoystick.getActivePointerId());
+    assertEquals(8, rightJoystick.getActivePointerId());
+
+    // each joystick follows its own pointer, whatever the order of the pointers
+    touch(obtain(MotionEvent.ACTION_MOVE, 0, pointer(8, 700, 100), pointer(3, 170, 130)));
+    assertEquals(170f, leftJoystick.touchCoordinates.x);
+    assertEquals(130f, leftJoystick.touchCoordinates.y);
+    assertEquals(100f, rightJoystick.touchCoordinates.x);
+    assertEquals(100f, rightJoystick.touchCoordinates.y);
+
+    // lifting the first pointer releases only the left stick, the right one goes on with the
+    // pointer that is now at index 0
+    touch(obtain(MotionEvent.ACTION_POINTER_UP, 1, pointer(8, 700, 100), pointer(3, 170, 130)));
+    assertFalse(leftJoystick.isActive());
+    assertTrue(rightJoystick.isActive());
+    touch(obtain(MotionEvent.ACTION_MOVE, 0, pointer(8, 680, 120)));
+    assertEquals(80f, rightJoystick.touchCoordinates.x);
+    assertEquals(120f, rightJoystick.touchCoordinates.y);
+    assertEquals(150f, leftJoystick.touchCoordinates.x);
+
+    touch(obtain(MotionEvent.ACTION_UP, 0, pointer(8, 680, 120)));
+    assertFalse(rightJoystick.isActive());
+  }
+
+  @Test
+  public void testAdaptivePeriodIgnoresJoysticksWithoutListeners() {
+    joystickLayout.setOnKnobMoveNotificationPolicy(Joystick.NOTIFICATION_POLICY_ADAPTIVE);
+    leftJoystick.setOnKnobMoveListener(new Joystick.OnKnobMoveListener() {
+      @Override
+      public void onKnobMove(float magnitude, float angle, int direction) {
+      }
+    });
+    // pressed without a touch event, so the notifier is only run by the test
+    leftJoystick.pressKnob(0, 150, 150, 0);
+    rightJoystick.pressKnob(1, 150, 150, 0);
+    JoystickLayout.OnKnobMoveNotifier onKnobMoveNotifier = joystickLayout.onKnobMoveNotifier;
+    onKnobMoveNotifier.setJoysticks(new Joystick[]{leftJoystick, rightJoystick});
+    onKnobMoveNotifier.start();
+
+    for (int i = 0; i < 4; ++i) {
+      MotionEvent event = MotionEvent.obtain(0, i + 1, MotionEvent.ACTION_MOVE, 200 + 20 * i,
+              150, 0);
+      rightJoystick.moveKnob(event, 0, 0, 0);
+      event.recycle();
+      long period = onKnobMoveNotifier.run();
+      assertEquals(leftJoystick.knobMoveRateAdapter.period, period);
+    }
+    // the moves of the right knob were never read, it is neither still nor backed off
+    assertEquals(-1, rightJoystick.knobMoveRateAdapter.lastKnobState.sequence);
+    assertFalse(rightJoystick.knobMoveRateAdapter.isBackedOff());
+    assertTrue(leftJoystick.knobMoveRateAdapter.isBackedOff());
+  }
+
+  @Test
+  public void testNotifierReusedAcrossGestures() throws Exception {
+    joystickLayout.setOnKnobMoveNotificationPolicy(Joystick.NOTIFICATION_POLICY_RATE);
+    joystickLayout.setOnKnobMoveNotificationRate(1);
+    final CountDownLatch leftLatch = new CountDownLatch(1);
+    final CountDownLatch rightLatch = new CountDownLatch(1);
+    leftJoystick.setOnKnobMoveListener(new Joystick.OnKnobMoveListener() {
+      @Override
+      public void onKnobMove(float magnitude, float angle, int direction) {
+        leftLatch.countDown();
+      }
+    });
+    rightJoystick.setOnKnobMoveListener(new Joystick.OnKnobMoveListener() {
+      @Override
+      public void onKnobMove(float magnitude, float angle, int direction) {
+        rightLatch.countDown();
+      }
+    });
+    JoystickLayout.OnKnobMoveNotifier onKnobMoveNotifier = joystickLayout.onKnobMoveNotifier;
+
+    intercept(obtain(MotionEvent.ACTION_DOWN, 0, pointer(0, 150, 150)));
+    touch(obtain(MotionEvent.ACTION_DOWN, 0, pointer(0, 150, 150)));
+    assertTrue(KnobMoveScheduler.getInstance().isScheduled(onKnobMoveNotifier));
+    assertTrue(leftLatch.await(5, TimeUnit.SECONDS));
+    touch(obtain(MotionEvent.ACTION_UP, 0, pointer(0, 150, 150)));
+    assertFalse(KnobMoveScheduler.getInstance().isScheduled(onKnobMoveNotifier));
+
+    intercept(obtain(MotionEvent.ACTION_DOWN, 0, pointer(0, 750, 150)));
+    touch(obtain(MotionEvent.ACTION_DOWN, 0, pointer(0, 750, 150)));
+    assertSame(onKnobMoveNotifier, joystickLayout.onKnobMoveNotifier);
+    assertTrue(KnobMoveScheduler.getInstance().isScheduled(onKnobMoveNotifier));
+    assertTrue(rightLatch.await(5, TimeUnit.SECONDS));
+    touch(obtain(MotionEvent.ACTION_UP, 0, pointer(0, 750, 150)));
+    assertFalse(KnobMoveScheduler.getInstance().isScheduled(onKnobMoveNotifier));
+  }
+}
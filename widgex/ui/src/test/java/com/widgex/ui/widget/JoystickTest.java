@@ -0,0 +1,342 @@
+package com.widgex.ui.widget;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.widgex.ui.BuildConfig;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23, packageName = "com.widgex.ui")
+public class JoystickTest {
+  private static final int DIMENSION = 300;
+
+  /**
+   * records the last invalidation instead of scheduling a draw.
+   */
+  private static class InvalidationRecordingJoystick extends Joystick {
+    Rect invalidatedRect;
+    boolean isFullyInvalidated;
+
+    InvalidationRecordingJoystick(Context context) {
+      super(context);
+    }
+
+    void resetInvalidation() {
+      invalidatedRect = null;
+      isFullyInvalidated = false;
+    }
+
+    @Override
+    public void invalidate() {
+      isFullyInvalidated = true;
+    }
+
+    @Override
+    public void invalidate(int l, int t, int r, int b) {
+      invalidatedRect = new Rect(l, t, r, b);
+    }
+  }
+
+  /**
+   * counts the notifications delivered on the scheduler thread.
+   */
+  private static class NotificationCountingListener implements Joystick.OnKnobMoveListener {
+    final Semaphore notifications = new Semaphore(0);
+    volatile float lastMagnitude = -1;
+
+    @Override
+    public void onKnobMove(float magnitude, float angle, int direction) {
+      lastMagnitude = magnitude;
+      notifications.release();
+    }
+
+    void awaitNotification() throws InterruptedException {
+      assertTrue(notifications.tryAcquire(5, TimeUnit.SECONDS));
+    }
+  }
+
+  private InvalidationRecordingJoystick joystick;
+
+  @Before
+  public void setUp() throws Exception {
+    joystick = new InvalidationRecordingJoystick(RuntimeEnvironment.application);
+    joystick.setLayoutParams(new ViewGroup.LayoutParams(DIMENSION, DIMENSION));
+    int measureSpec = View.MeasureSpec.makeMeasureSpec(DIMENSION, View.MeasureSpec.EXACTLY);
+    joystick.measure(measureSpec, measureSpec);
+    joystick.layout(0, 0, DIMENSION, DIMENSION);
+    joystick.setOnKnobMoveNotificationPolicy(Joystick.NOTIFICATION_POLICY_NONE);
+  }
+
+  private void touch(int action, float x, float y) {
+    touch(action, x, y, 0);
+  }
+
+  private void touch(int action, float x, float y, long eventTime) {
+    MotionEvent event = MotionEvent.obtain(0, eventTime, action, x, y, 0);
+    joystick.onTouchEvent(event);
+    event.recycle();
+  }
+
+  /**
+   * @return the bounds the knob is drawn in, by onDraw and by the render cache, with the
+   * anti-aliased pixels around them.
+   */
+  private Rect drawnKnobBounds() {
+    float knobRadius = joystick.activeKnobRadius;
+    Rect rect = new Rect((int) (joystick.touchCoordinates.x - knobRadius),
+            (int) (joystick.touchCoordinates.y - knobRadius),
+            (int) (joystick.touchCoordinates.x + knobRadius),
+            (int) (joystick.touchCoordinates.y + knobRadius));
+    rect.inset(-1, -1);
+    return rect;
+  }
+
+  /**
+   * @return the stroked lines drawn around the passed sector.
+   */
+  private Rect drawnSectorBounds(int sector) {
+    float halfStrokeWidth = joystick.sectorBoundsPaint.getStrokeWidth() / 2;
+    float[] points = joystick.sectorBoundsPoints;
+    Rect rect = null;
+    int numberOfSectors = points.length / 4;
+    for (int boundIndex : new int[]{4 * sector, 4 * ((sector + 1) % numberOfSectors)}) {
+      for (int i = boundIndex; i < boundIndex + 4; i += 2) {
+        Rect pointRect = new Rect((int) Math.floor(points[i] - halfStrokeWidth),
+                (int) Math.floor(points[i + 1] - halfStrokeWidth),
+                (int) Math.ceil(points[i] + halfStrokeWidth),
+                (int) Math.ceil(points[i + 1] + halfStrokeWidth));
+        if (rect == null)
+          rect = pointRect;
+        else
+          rect.union(pointRect);
+      }
+    }
+    return rect;
+  }
+
+  private static void assertCovers(Rect dirtyRect, Rect drawnRect) {
+    assertTrue(dirtyRect + " does not cover " + drawnRect, dirtyRect.contains(drawnRect));
+  }
+
+  @Test
+  public void testInvalidatesBothKnobPositions() {
+    touch(MotionEvent.ACTION_DOWN, 250.3f, 150.6f);
+    assertTrue(joystick.isFullyInvalidated);
+    int direction = joystick.direction;
+    Rect oldKnobBounds = drawnKnobBounds();
+
+    // a few pixels within the same sector, only the knob is redrawn
+    joystick.resetInvalidation();
+    touch(MotionEvent.ACTION_MOVE, 257.8f, 146.1f);
+    assertEquals(direction, joystick.direction);
+    assertNotNull(joystick.invalidatedRect);
+    assertCovers(joystick.invalidatedRect, oldKnobBounds);
+    assertCovers(joystick.invalidatedRect, drawnKnobBounds());
+
+    // the same pixels, nothing to redraw
+    joystick.resetInvalidation();
+    touch(MotionEvent.ACTION_MOVE, 257.9f, 146.2f);
+    assertNull(joystick.invalidatedRect);
+    assertTrue(!joystick.isFullyInvalidated);
+  }
+
+  @Test
+  public void testInvalidatesBothSectors() {
+    touch(MotionEvent.ACTION_DOWN, 250, 150);
+    int oldDirection = joystick.direction;
+    Rect oldKnobBounds = drawnKnobBounds();
+
+    joystick.resetInvalidation();
+    touch(MotionEvent.ACTION_MOVE, 150.5f, 50.5f);
+    assertTrue(joystick.direction != oldDirection);
+    assertTrue(joystick.direction != Joystick.DIRECTION_CENTER);
+    assertNotNull(joystick.invalidatedRect);
+    assertCovers(joystick.invalidatedRect, oldKnobBounds);
+    assertCovers(joystick.invalidatedRect, drawnKnobBounds());
+    assertCovers(joystick.invalidatedRect, drawnSectorBounds(oldDirection));
+    assertCovers(joystick.invalidatedRect, drawnSectorBounds(joystick.direction));
+  }
+
+  @Test
+  public void testCachedKnobCoversUncachedKnob() {
+    RecordingCanvas canvas = new RecordingCanvas();
+    Set<Integer> knobWidths = new HashSet<>();
+    // with a fractional diameter the truncated bounds are one pixel wider at some fractions
+    joystick.setActiveKnobRadius(40.4f);
+    touch(MotionEvent.ACTION_DOWN, 250, 150);
+    // every fraction of the coordinates, the truncated bounds of the knob change size with them
+    for (int i = 0; i < 100; ++i) {
+      touch(MotionEvent.ACTION_MOVE, 250 + i / 10f, 150 + i / 7f);
+      joystick.setRenderCacheEnabled(false);
+      joystick.onDraw(canvas);
+      Rect knobBounds = new Rect(joystick.knob.getBounds());
+      knobWidths.add(knobBounds.width());
+
+      // the sprite is the knob drawn at the size of the same bounds, blitted at their corner
+      joystick.setRenderCacheEnabled(true);
+      canvas.reset();
+      joystick.onDraw(canvas);
+      Bitmap knobSprite = canvas.getLastBitmap();
+      assertNotNull(knobSprite);
+      assertEquals(knobBounds.width(), knobSprite.getWidth());
+      assertEquals(knobBounds.height(), knobSprite.getHeight());
+      assertEquals((float) knobBounds.left, canvas.getLastBitmapLeft());
+      assertEquals((float) knobBounds.top, canvas.getLastBitmapTop());
+    }
+    assertTrue(knobWidths.size() > 1);
+  }
+
+  /**
+   * draws a frame at the passed uptimeMillis, which updates the drawn opacity.
+   */
+  private void drawAt(long time) {
+    SystemClock.setCurrentTimeMillis(time);
+    joystick.draw(new RecordingCanvas());
+  }
+
+  @Test
+  public void testOpacityFadeIsClamped() {
+    joystick.setIdleViewOpacity(0.25f);
+    joystick.setActiveViewOpacity(1);
+    joystick.setOpacityFadeDuration(100);
+    drawAt(900);
+    assertEquals(0.25f, joystick.viewOpacity);
+
+    touch(MotionEvent.ACTION_DOWN, 250, 150, 1000);
+    assertEquals(0.25f, joystick.computeViewOpacity(990));
+    assertEquals(0.25f, joystick.computeViewOpacity(1000));
+    assertEquals(0.625f, joystick.computeViewOpacity(1050));
+    assertEquals(1f, joystick.computeViewOpacity(1100));
+    assertEquals(1f, joystick.computeViewOpacity(Long.MAX_VALUE));
+    for (long time = 900; time <= 1200; ++time) {
+      float opacity = joystick.computeViewOpacity(time);
+      assertTrue(time + ": " + opacity, opacity >= 0.25f && opacity <= 1);
+    }
+
+    // released in the middle of the fade, it fades back from the drawn opacity
+    drawAt(1050);
+    touch(MotionEvent.ACTION_UP, 250, 150, 1050);
+    assertEquals(0.625f, joystick.computeViewOpacity(1050));
+    assertEquals(0.4375f, joystick.computeViewOpacity(1100));
+    assertEquals(0.25f, joystick.computeViewOpacity(1150));
+    assertEquals(0.25f, joystick.computeViewOpacity(Long.MAX_VALUE));
+  }
+
+  @Test
+  public void testOpacityWithoutFade() {
+    joystick.setIdleViewOpacity(0.25f);
+    joystick.setActiveViewOpacity(1);
+    joystick.setOpacityFadeDuration(0);
+    touch(MotionEvent.ACTION_DOWN, 250, 150, 1000);
+    assertEquals(1f, joystick.computeViewOpacity(999));
+    assertEquals(1f, joystick.computeViewOpacity(1000));
+  }
+
+  /**
+   * presses the knob with a notifier that runs once when it starts and then not before the test
+   * ends, so the only other notification is the final one delivered when it stops.
+   */
+  private NotificationCountingListener pressWithNotifier() throws InterruptedException {
+    NotificationCountingListener listener = new NotificationCountingListener();
+    joystick.setOnKnobMoveListener(listener);
+    joystick.setOnKnobMoveNotificationPolicy(Joystick.NOTIFICATION_POLICY_RATE);
+    joystick.setOnKnobMoveNotificationRate(TimeUnit.MINUTES.toMillis(10));
+    touch(MotionEvent.ACTION_DOWN, 250, 150);
+    listener.awaitNotification();
+    assertTrue(listener.lastMagnitude > 0);
+    touch(MotionEvent.ACTION_MOVE, 260, 140);
+    return listener;
+  }
+
+  /**
+   * the knob is released and its released state is notified exactly once by the stopped task.
+   */
+  private void assertReleasedOnce(NotificationCountingListener listener) throws Exception {
+    assertFalse(joystick.isActive());
+    assertEquals(MotionEvent.INVALID_POINTER_ID, joystick.getActivePointerId());
+    assertFalse(joystick.isKnobMoveNotifierRunning());
+    listener.awaitNotification();
+    assertEquals(0f, listener.lastMagnitude);
+    Thread.sleep(50);
+    assertEquals(0, listener.notifications.availablePermits());
+  }
+
+  @Test
+  public void testCancelReleasesKnob() throws Exception {
+    NotificationCountingListener listener = pressWithNotifier();
+    touch(MotionEvent.ACTION_CANCEL, 260, 140);
+    assertReleasedOnce(listener);
+
+    // a later cancel has nothing to release
+    touch(MotionEvent.ACTION_CANCEL, 260, 140);
+    Thread.sleep(50);
+    assertEquals(0, listener.notifications.availablePermits());
+  }
+
+  @Test
+  public void testDetachReleasesKnob() throws Exception {
+    NotificationCountingListener listener = pressWithNotifier();
+    joystick.onDetachedFromWindow();
+    assertReleasedOnce(listener);
+  }
+
+  @Test
+  public void testPolicyChangedFromHandOffDuringGesture() throws Exception {
+    final AtomicInteger numberOfRunningListeners = new AtomicInteger();
+    final AtomicBoolean isNotifiedConcurrently = new AtomicBoolean();
+    NotificationCountingListener listener = new NotificationCountingListener() {
+      @Override
+      public void onKnobMove(float magnitude, float angle, int direction) {
+        if (numberOfRunningListeners.incrementAndGet() > 1)
+          isNotifiedConcurrently.set(true);
+        // keeps the run of the scheduler thread in flight while the UI thread dispatches
+        try {
+          Thread.sleep(20);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        numberOfRunningListeners.decrementAndGet();
+        super.onKnobMove(magnitude, angle, direction);
+      }
+    };
+    joystick.setOnKnobMoveListener(listener);
+    joystick.setOnKnobMoveNotificationPolicy(Joystick.NOTIFICATION_POLICY_HANDOFF);
+    touch(MotionEvent.ACTION_DOWN, 250, 150);
+    listener.awaitNotification();
+    touch(MotionEvent.ACTION_MOVE, 260, 140);
+
+    // the synchronous notifier dispatches on this thread once the handed off run is done
+    joystick.setOnKnobMoveNotificationPolicy(Joystick.NOTIFICATION_POLICY_SYNCHRONOUS);
+    touch(MotionEvent.ACTION_MOVE, 270, 130);
+    touch(MotionEvent.ACTION_UP, 270, 130);
+    assertEquals(0f, listener.lastMagnitude);
+    Thread.sleep(100);
+    assertEquals(0f, listener.lastMagnitude);
+    assertFalse(isNotifiedConcurrently.get());
+  }
+}
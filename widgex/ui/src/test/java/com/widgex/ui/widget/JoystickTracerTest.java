@@ -0,0 +1,110 @@
+package com.widgex.ui.widget;
+
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.widgex.ui.BuildConfig;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23, packageName = "com.widgex.ui")
+public class JoystickTracerTest {
+  private static final int DIMENSION = 300;
+
+  private Joystick joystick;
+  private RecordingTracer tracer;
+
+  @Before
+  public void setUp() throws Exception {
+    joystick = new Joystick(RuntimeEnvironment.application);
+    joystick.setLayoutParams(new ViewGroup.LayoutParams(DIMENSION, DIMENSION));
+    joystick.setOnKnobMoveNotificationPolicy(Joystick.NOTIFICATION_POLICY_NONE);
+    tracer = new RecordingTracer();
+    joystick.setTracer(tracer);
+  }
+
+  private void touch(int action, float x, float y) {
+    MotionEvent event = MotionEvent.obtain(0, 0, action, x, y, 0);
+    joystick.onTouchEvent(event);
+    event.recycle();
+  }
+
+  @Test
+  public void testSections() throws Exception {
+    int measureSpec = View.MeasureSpec.makeMeasureSpec(DIMENSION, View.MeasureSpec.EXACTLY);
+    joystick.measure(measureSpec, measureSpec);
+    assertEquals(Arrays.asList(Joystick.TRACE_SECTION_MEASURE,
+            Joystick.TRACE_SECTION_INIT_MEASURES, Joystick.TRACE_SECTION_INIT_SECTOR_BOUNDS),
+            tracer.getSections());
+
+    // the geometry is not recomputed for the same dimension
+    tracer.reset();
+    joystick.onMeasure(measureSpec, measureSpec);
+    assertEquals(Arrays.asList(Joystick.TRACE_SECTION_MEASURE), tracer.getSections());
+    joystick.layout(0, 0, DIMENSION, DIMENSION);
+
+    tracer.reset();
+    touch(MotionEvent.ACTION_DOWN, DIMENSION / 2, DIMENSION / 2);
+    touch(MotionEvent.ACTION_MOVE, DIMENSION, DIMENSION / 2);
+    joystick.draw(new RecordingCanvas());
+    assertEquals(Arrays.asList(Joystick.TRACE_SECTION_TOUCH_EVENT,
+            Joystick.TRACE_SECTION_TOUCH_EVENT, Joystick.TRACE_SECTION_DRAW),
+            tracer.getSections());
+    assertEquals(0, tracer.getDepth());
+  }
+
+  @Test
+  public void testCounters() throws Exception {
+    int measureSpec = View.MeasureSpec.makeMeasureSpec(DIMENSION, View.MeasureSpec.EXACTLY);
+    joystick.measure(measureSpec, measureSpec);
+    joystick.layout(0, 0, DIMENSION, DIMENSION);
+    joystick.setOnKnobMoveListener(new Joystick.OnKnobMoveListener() {
+      @Override
+      public void onKnobMove(float magnitude, float angle, int direction) {
+      }
+    });
+
+    touch(MotionEvent.ACTION_DOWN, DIMENSION / 2, DIMENSION / 2);
+    KnobState knobState = new KnobState();
+    KnobState lastNotifiedKnobState = new KnobState();
+    lastNotifiedKnobState.sequence = -1;
+    joystick.dispatchKnobMove(knobState, lastNotifiedKnobState, false);
+
+    tracer.reset();
+    touch(MotionEvent.ACTION_MOVE, DIMENSION / 2, 0);
+    touch(MotionEvent.ACTION_MOVE, DIMENSION / 2 + 10, 0);
+    touch(MotionEvent.ACTION_MOVE, DIMENSION, DIMENSION / 2);
+    assertEquals(Math.round(joystick.magnitude * 1000),
+            (long) tracer.getCounter(Joystick.TRACE_COUNTER_MAGNITUDE));
+    assertEquals(joystick.direction, (long) tracer.getCounter(Joystick.TRACE_COUNTER_DIRECTION));
+    assertTrue(joystick.magnitude > 0);
+
+    // three samples were published since the previous notification
+    joystick.dispatchKnobMove(knobState, lastNotifiedKnobState, false);
+    assertEquals(3, (long) tracer.getCounter(Joystick.TRACE_COUNTER_NOTIFIER_QUEUE_DEPTH));
+    assertTrue(tracer.getSections().contains(Joystick.TRACE_SECTION_NOTIFY_KNOB_MOVE));
+    assertEquals(0, tracer.getDepth());
+  }
+
+  @Test
+  public void testDisabledTracer() throws Exception {
+    joystick.setTracer(null);
+    int measureSpec = View.MeasureSpec.makeMeasureSpec(DIMENSION, View.MeasureSpec.EXACTLY);
+    joystick.measure(measureSpec, measureSpec);
+    touch(MotionEvent.ACTION_DOWN, DIMENSION / 2, DIMENSION / 2);
+    joystick.draw(new RecordingCanvas());
+    assertTrue(tracer.getSections().isEmpty());
+  }
+}
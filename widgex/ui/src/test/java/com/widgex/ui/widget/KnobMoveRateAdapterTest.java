@@ -0,0 +1,80 @@
+package com.widgex.ui.widget;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class KnobMoveRateAdapterTest {
+  protected static final long NOMINAL_RATE = 50;
+
+  protected static KnobState knobState(long sequence, long eventTime, float magnitude,
+                                       float angle) {
+    KnobState knobState = new KnobState();
+    knobState.sequence = sequence;
+    knobState.eventTime = eventTime;
+    knobState.magnitude = magnitude;
+    knobState.angle = angle;
+    return knobState;
+  }
+
+  protected static long millis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos);
+  }
+
+  @Test
+  public void testStartsAtNominalRate() {
+    KnobMoveRateAdapter knobMoveRateAdapter = new KnobMoveRateAdapter();
+    assertEquals(NOMINAL_RATE,
+            millis(knobMoveRateAdapter.nextPeriod(knobState(1, 0, 0, 0), NOMINAL_RATE)));
+    assertFalse(knobMoveRateAdapter.isBackedOff());
+  }
+
+  @Test
+  public void testBacksOffExponentiallyWhileStationary() {
+    KnobMoveRateAdapter knobMoveRateAdapter = new KnobMoveRateAdapter();
+    knobMoveRateAdapter.setRates(10, 300);
+    KnobState stationary = knobState(1, 0, 0.5f, 90);
+    knobMoveRateAdapter.nextPeriod(stationary, NOMINAL_RATE);
+
+    assertEquals(100, millis(knobMoveRateAdapter.nextPeriod(stationary, NOMINAL_RATE)));
+    assertTrue(knobMoveRateAdapter.isBackedOff());
+    assertEquals(200, millis(knobMoveRateAdapter.nextPeriod(stationary, NOMINAL_RATE)));
+    assertEquals(300, millis(knobMoveRateAdapter.nextPeriod(stationary, NOMINAL_RATE)));
+    assertEquals(300, millis(knobMoveRateAdapter.nextPeriod(stationary, NOMINAL_RATE)));
+  }
+
+  @Test
+  public void testSpeedsUpWithVelocity() {
+    KnobMoveRateAdapter knobMoveRateAdapter = new KnobMoveRateAdapter();
+    knobMoveRateAdapter.setRates(5, 300);
+    knobMoveRateAdapter.setVelocityThresholds(1, 90);
+    knobMoveRateAdapter.nextPeriod(knobState(1, 0, 0.5f, 0), NOMINAL_RATE);
+
+    // 4 times the angular threshold: 36 degrees in 100 ms
+    assertEquals(NOMINAL_RATE / 4,
+            millis(knobMoveRateAdapter.nextPeriod(knobState(2, 100, 0.5f, 36), NOMINAL_RATE)));
+    // the angle wraps around 360: 36 degrees in 100 ms again
+    assertEquals(NOMINAL_RATE / 4,
+            millis(knobMoveRateAdapter.nextPeriod(knobState(3, 200, 0.5f, 0), NOMINAL_RATE)));
+    assertEquals(NOMINAL_RATE / 4,
+            millis(knobMoveRateAdapter.nextPeriod(knobState(4, 300, 0.5f, 324), NOMINAL_RATE)));
+    // a flick across the whole magnitude range in 10 ms is clamped to the minimum rate
+    assertEquals(5,
+            millis(knobMoveRateAdapter.nextPeriod(knobState(5, 310, 1.0f, 324), NOMINAL_RATE)));
+    assertFalse(knobMoveRateAdapter.isBackedOff());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidRates() {
+    new KnobMoveRateAdapter().setRates(100, 10);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidVelocityThresholds() {
+    new KnobMoveRateAdapter().setVelocityThresholds(0, 90);
+  }
+}
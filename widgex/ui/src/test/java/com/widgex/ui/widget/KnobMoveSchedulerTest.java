@@ -0,0 +1,114 @@
+package com.widgex.ui.widget;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class KnobMoveSchedulerTest {
+  protected static class CountingTask implements KnobMoveScheduler.Task {
+    protected final long period;
+    protected final CountDownLatch runLatch;
+    protected final CountDownLatch stopLatch = new CountDownLatch(1);
+    protected volatile int numberOfStarts;
+    protected volatile int numberOfRuns;
+    protected volatile int numberOfStops;
+    protected volatile boolean isRunAfterStop;
+
+    public CountingTask(long period, int expectedRuns) {
+      this.period = period;
+      runLatch = new CountDownLatch(expectedRuns);
+    }
+
+    @Override
+    public void start() {
+      ++numberOfStarts;
+    }
+
+    @Override
+    public long run() {
+      if (numberOfStops > 0)
+        isRunAfterStop = true;
+      ++numberOfRuns;
+      runLatch.countDown();
+      return period;
+    }
+
+    @Override
+    public void stop() {
+      ++numberOfStops;
+      stopLatch.countDown();
+    }
+  }
+
+  @Test
+  public void testRunsUntilCancelled() throws Exception {
+    KnobMoveScheduler knobMoveScheduler = new KnobMoveScheduler();
+    CountingTask task = new CountingTask(TimeUnit.MILLISECONDS.toNanos(2), 5);
+
+    knobMoveScheduler.schedule(task);
+    assertTrue(knobMoveScheduler.isScheduled(task));
+    assertTrue(task.runLatch.await(5, TimeUnit.SECONDS));
+
+    knobMoveScheduler.cancel(task);
+    assertFalse(knobMoveScheduler.isScheduled(task));
+    assertTrue(task.stopLatch.await(5, TimeUnit.SECONDS));
+    Thread.sleep(20);
+
+    assertEquals(1, task.numberOfStarts);
+    assertEquals(1, task.numberOfStops);
+    assertFalse(task.isRunAfterStop);
+  }
+
+  @Test
+  public void testRunsTasksAtTheirOwnPeriods() throws Exception {
+    KnobMoveScheduler knobMoveScheduler = new KnobMoveScheduler();
+    CountingTask fastTask = new CountingTask(TimeUnit.MILLISECONDS.toNanos(5), 20);
+    CountingTask slowTask = new CountingTask(TimeUnit.SECONDS.toNanos(10), 1);
+
+    knobMoveScheduler.schedule(fastTask);
+    knobMoveScheduler.schedule(slowTask);
+    assertTrue(fastTask.runLatch.await(5, TimeUnit.SECONDS));
+    knobMoveScheduler.cancel(fastTask);
+    knobMoveScheduler.cancel(slowTask);
+    assertTrue(fastTask.stopLatch.await(5, TimeUnit.SECONDS));
+    assertTrue(slowTask.stopLatch.await(5, TimeUnit.SECONDS));
+
+    // the slow task runs once when scheduled and is not due again before being cancelled
+    assertEquals(1, slowTask.numberOfRuns);
+  }
+
+  @Test
+  public void testWaitingTaskRunsOnlyOnRunNow() throws Exception {
+    KnobMoveScheduler knobMoveScheduler = new KnobMoveScheduler();
+    CountingTask task = new CountingTask(-1, 3);
+
+    knobMoveScheduler.schedule(task);
+    Thread.sleep(20);
+    assertEquals(1, task.numberOfRuns);
+
+    knobMoveScheduler.runNow(task);
+    while (task.numberOfRuns < 2)
+      Thread.sleep(1);
+    knobMoveScheduler.runNow(task);
+    assertTrue(task.runLatch.await(5, TimeUnit.SECONDS));
+    Thread.sleep(20);
+    assertEquals(3, task.numberOfRuns);
+
+    knobMoveScheduler.cancel(task);
+    assertTrue(task.stopLatch.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testCancelUnscheduledTaskIsIgnored() throws Exception {
+    KnobMoveScheduler knobMoveScheduler = new KnobMoveScheduler();
+    CountingTask task = new CountingTask(0, 1);
+    knobMoveScheduler.cancel(task);
+    assertFalse(knobMoveScheduler.isScheduled(task));
+    assertEquals(0, task.numberOfStops);
+  }
+}
@@ -0,0 +1,98 @@
+package com.widgex.ui.widget;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+
+public class KnobSampleBatchTest {
+  protected static final int CAPACITY = 5;
+
+  /**
+   * adds the samples [from, to), every field of sample n is derived from n.
+   */
+  protected static void add(KnobSampleBatch knobSampleBatch, int from, int to) {
+    for (int n = from; n < to; ++n)
+      knobSampleBatch.add(n / 100f, n, n % 9, n + 0.5f, -n, 1000 + n);
+  }
+
+  protected static void assertSamples(KnobSampleBatch knobSampleBatch, int from, int to) {
+    assertEquals(0, knobSampleBatch.head);
+    assertEquals(to - from, knobSampleBatch.size);
+    for (int i = 0; i < knobSampleBatch.size; ++i) {
+      int n = from + i;
+      assertEquals(n / 100f, knobSampleBatch.magnitude[i]);
+      assertEquals((float) n, knobSampleBatch.angle[i]);
+      assertEquals(n % 9, knobSampleBatch.direction[i]);
+      assertEquals(n + 0.5f, knobSampleBatch.x[i]);
+      assertEquals((float) -n, knobSampleBatch.y[i]);
+      assertEquals(1000 + n, knobSampleBatch.eventTime[i]);
+    }
+  }
+
+  @Test
+  public void testAddWithinCapacity() {
+    KnobSampleBatch knobSampleBatch = new KnobSampleBatch(CAPACITY);
+    add(knobSampleBatch, 0, CAPACITY);
+    knobSampleBatch.unroll();
+    assertSamples(knobSampleBatch, 0, CAPACITY);
+    assertEquals(0, knobSampleBatch.droppedCount);
+  }
+
+  @Test
+  public void testOverflowKeepsNewestInOrder() {
+    // every head position, including a full turn of the ring
+    for (int overflow = 1; overflow <= 2 * CAPACITY; ++overflow) {
+      KnobSampleBatch knobSampleBatch = new KnobSampleBatch(CAPACITY);
+      add(knobSampleBatch, 0, CAPACITY + overflow);
+      assertEquals(overflow % CAPACITY, knobSampleBatch.head);
+      assertEquals(overflow, knobSampleBatch.droppedCount);
+      knobSampleBatch.unroll();
+      assertSamples(knobSampleBatch, overflow, CAPACITY + overflow);
+    }
+  }
+
+  @Test
+  public void testClear() {
+    KnobSampleBatch knobSampleBatch = new KnobSampleBatch(CAPACITY);
+    add(knobSampleBatch, 0, CAPACITY + 2);
+    knobSampleBatch.clear();
+    assertEquals(0, knobSampleBatch.droppedCount);
+    assertSamples(knobSampleBatch, 0, 0);
+    add(knobSampleBatch, 10, 13);
+    assertSamples(knobSampleBatch, 10, 13);
+  }
+
+  @Test
+  public void testBufferSwap() {
+    KnobSampleBatchBuffer knobSampleBatchBuffer = new KnobSampleBatchBuffer(CAPACITY);
+    for (int n = 0; n < CAPACITY + 3; ++n)
+      knobSampleBatchBuffer.add(n / 100f, n, n % 9, n + 0.5f, -n, 1000 + n);
+
+    // the overflowed batch is delivered unrolled
+    KnobSampleBatch knobSampleBatch = knobSampleBatchBuffer.swap();
+    assertSamples(knobSampleBatch, 3, CAPACITY + 3);
+    assertEquals(3, knobSampleBatch.droppedCount);
+
+    // the next swap drains only what was added in between, in the other batch
+    knobSampleBatchBuffer.add(0.2f, 20, 2, 20.5f, -20, 1020);
+    KnobSampleBatch nextKnobSampleBatch = knobSampleBatchBuffer.swap();
+    assertSamples(nextKnobSampleBatch, 20, 21);
+    assertEquals(0, nextKnobSampleBatch.droppedCount);
+
+    assertSame(knobSampleBatch, knobSampleBatchBuffer.swap());
+    assertSamples(knobSampleBatch, 0, 0);
+  }
+
+  @Test
+  public void testBufferClear() {
+    KnobSampleBatchBuffer knobSampleBatchBuffer = new KnobSampleBatchBuffer(CAPACITY);
+    for (int n = 0; n < CAPACITY + 1; ++n)
+      knobSampleBatchBuffer.add(n / 100f, n, n % 9, n + 0.5f, -n, 1000 + n);
+    knobSampleBatchBuffer.clear();
+
+    KnobSampleBatch knobSampleBatch = knobSampleBatchBuffer.swap();
+    assertSamples(knobSampleBatch, 0, 0);
+    assertEquals(0, knobSampleBatch.droppedCount);
+  }
+}
@@ -0,0 +1,108 @@
+package com.widgex.ui.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * the boundaries of {@link Joystick#isKnobStateChanged(KnobState, KnobState, boolean, float, float)},
+ * the deadbands are powers of two so the changes at the threshold are exact.
+ */
+public class KnobStateChangeTest {
+  private static final float MAGNITUDE_DEADBAND = 0.25f;
+  private static final float ANGLE_DEADBAND = 8;
+
+  private KnobState lastNotifiedKnobState;
+  private KnobState knobState;
+
+  @Before
+  public void setUp() throws Exception {
+    lastNotifiedKnobState = newKnobState(0, 0.5f, 90, Joystick.DIRECTION_FORWARD);
+    knobState = new KnobState();
+    knobState.set(lastNotifiedKnobState);
+    knobState.sequence = 1;
+  }
+
+  private static KnobState newKnobState(long sequence, float magnitude, float angle, int direction) {
+    KnobState knobState = new KnobState();
+    knobState.sequence = sequence;
+    knobState.magnitude = magnitude;
+    knobState.angle = angle;
+    knobState.direction = direction;
+    return knobState;
+  }
+
+  private boolean isChanged() {
+    return Joystick.isKnobStateChanged(lastNotifiedKnobState, knobState, true,
+            MAGNITUDE_DEADBAND, ANGLE_DEADBAND);
+  }
+
+  @Test
+  public void testFirstNotification() {
+    lastNotifiedKnobState.sequence = -1;
+    knobState.magnitude = 0;
+    knobState.direction = Joystick.DIRECTION_CENTER;
+    assertTrue(isChanged());
+    lastNotifiedKnobState.set(knobState);
+    knobState.sequence = 2;
+    assertFalse(isChanged());
+  }
+
+  @Test
+  public void testEverySampleWhenNotOnChangeOnly() {
+    assertTrue(Joystick.isKnobStateChanged(lastNotifiedKnobState, knobState, false,
+            MAGNITUDE_DEADBAND, ANGLE_DEADBAND));
+    knobState.sequence = lastNotifiedKnobState.sequence;
+    knobState.magnitude = 1;
+    assertFalse(Joystick.isKnobStateChanged(lastNotifiedKnobState, knobState, false,
+            MAGNITUDE_DEADBAND, ANGLE_DEADBAND));
+  }
+
+  @Test
+  public void testMagnitudeDeadband() {
+    knobState.magnitude = 0.5f + MAGNITUDE_DEADBAND;
+    assertFalse(isChanged());
+    knobState.magnitude = 0.5f - MAGNITUDE_DEADBAND;
+    assertFalse(isChanged());
+    knobState.magnitude = 0.5f + MAGNITUDE_DEADBAND + 1f / 1024;
+    assertTrue(isChanged());
+  }
+
+  @Test
+  public void testAngleDeadband() {
+    knobState.angle = 90 + ANGLE_DEADBAND;
+    assertFalse(isChanged());
+    knobState.angle = 90 + ANGLE_DEADBAND + 1f / 64;
+    assertTrue(isChanged());
+  }
+
+  @Test
+  public void testAngleDeadbandWrapsAround() {
+    lastNotifiedKnobState.angle = 4;
+    knobState.angle = Joystick.MAX_ANGLE - 4;
+    assertFalse(isChanged());
+    knobState.angle = Joystick.MAX_ANGLE - 5;
+    assertTrue(isChanged());
+  }
+
+  @Test
+  public void testDirectionChangeWithinDeadbands() {
+    knobState.magnitude = 0.5f + 1f / 1024;
+    knobState.angle = 90 + 1f / 64;
+    knobState.direction = Joystick.DIRECTION_RIGHT;
+    assertTrue(isChanged());
+  }
+
+  @Test
+  public void testReleaseWithinMagnitudeDeadband() {
+    lastNotifiedKnobState.magnitude = MAGNITUDE_DEADBAND / 2;
+    knobState.magnitude = 0;
+    assertTrue(isChanged());
+
+    // released at the center where the last state was already notified
+    lastNotifiedKnobState.magnitude = 0;
+    assertFalse(isChanged());
+  }
+}
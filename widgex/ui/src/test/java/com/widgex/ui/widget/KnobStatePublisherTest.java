@@ -0,0 +1,58 @@
+package com.widgex.ui.widget;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class KnobStatePublisherTest {
+  @Test
+  public void testReadIsNeverTorn() throws Exception {
+    final KnobStatePublisher knobStatePublisher = new KnobStatePublisher();
+    final int NUMBER_OF_SAMPLES = 200000;
+    Thread writer = new Thread() {
+      @Override
+      public void run() {
+        for (int i = 1; i <= NUMBER_OF_SAMPLES; ++i)
+          knobStatePublisher.publish(i, i, i, i, i, i);
+      }
+    };
+
+    KnobState knobState = new KnobState();
+    long lastSequence = 0;
+    writer.start();
+    while (writer.isAlive()) {
+      // the initial state (direction = DIRECTION_CENTER) is read before the first publish
+      if (knobStatePublisher.read(knobState) == 0)
+        continue;
+      long expected = knobState.eventTime;
+      assertEquals(expected, (long) knobState.magnitude);
+      assertEquals(expected, (long) knobState.angle);
+      assertEquals(expected, (long) knobState.direction);
+      assertEquals(expected, (long) knobState.x);
+      assertEquals(expected, (long) knobState.y);
+      assertTrue("sequence went backward", knobState.sequence >= lastSequence);
+      lastSequence = knobState.sequence;
+    }
+    writer.join();
+
+    knobStatePublisher.read(knobState);
+    assertEquals(NUMBER_OF_SAMPLES, knobState.sequence);
+    assertEquals(NUMBER_OF_SAMPLES, knobState.eventTime);
+  }
+
+  @Test
+  public void testReadIntoFloatArray() {
+    KnobStatePublisher knobStatePublisher = new KnobStatePublisher();
+    knobStatePublisher.publish(0.5f, 90, Joystick.DIRECTION_FORWARD, 0, 0.5f, 100);
+    knobStatePublisher.publish(0.75f, 180, Joystick.DIRECTION_LEFT, -0.75f, 0, 116);
+
+    float[] state = new float[KnobState.FLOAT_ARRAY_SIZE + 2];
+    assertEquals(2, knobStatePublisher.read(state, 2));
+    assertEquals(0.75f, state[2 + KnobState.MAGNITUDE_INDEX]);
+    assertEquals(180.0f, state[2 + KnobState.ANGLE_INDEX]);
+    assertEquals(Joystick.DIRECTION_LEFT, (int) state[2 + KnobState.DIRECTION_INDEX]);
+    assertEquals(-0.75f, state[2 + KnobState.X_INDEX]);
+    assertEquals(0.0f, state[2 + KnobState.Y_INDEX]);
+  }
+}
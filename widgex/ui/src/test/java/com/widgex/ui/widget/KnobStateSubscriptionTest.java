@@ -0,0 +1,98 @@
+package com.widgex.ui.widget;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+
+import static junit.framework.Assert.assertEquals;
+
+public class KnobStateSubscriptionTest {
+  /**
+   * runs the posted deliveries only when asked, like a busy looper.
+   */
+  protected static class ManualExecutor implements Executor {
+    protected final ArrayList<Runnable> runnables = new ArrayList<>();
+
+    @Override
+    public void execute(Runnable runnable) {
+      runnables.add(runnable);
+    }
+
+    public void runAll() {
+      while (!runnables.isEmpty())
+        runnables.remove(0).run();
+    }
+  }
+
+  protected static class RecordingListener implements Joystick.OnKnobStateListener {
+    protected final ArrayList<Long> sequences = new ArrayList<>();
+
+    @Override
+    public void onKnobState(KnobState knobState) {
+      sequences.add(knobState.sequence);
+    }
+  }
+
+  protected static void offer(KnobStateSubscription knobStateSubscription, long sequence) {
+    KnobState knobState = new KnobState();
+    knobState.sequence = sequence;
+    knobStateSubscription.offer(knobState);
+  }
+
+  @Test
+  public void testConflatingDeliversLatest() {
+    ManualExecutor executor = new ManualExecutor();
+    RecordingListener listener = new RecordingListener();
+    KnobStateSubscription knobStateSubscription = new KnobStateSubscription(listener, executor,
+            KnobStateSubscription.CONFLATING_CAPACITY);
+
+    for (long sequence = 1; sequence <= 5; ++sequence)
+      offer(knobStateSubscription, sequence);
+    assertEquals(1, executor.runnables.size());
+    executor.runAll();
+
+    assertEquals(1, listener.sequences.size());
+    assertEquals(5L, (long) listener.sequences.get(0));
+    assertEquals(4, knobStateSubscription.getDroppedCount());
+  }
+
+  @Test
+  public void testBoundedQueueDropsOldest() {
+    ManualExecutor executor = new ManualExecutor();
+    RecordingListener listener = new RecordingListener();
+    KnobStateSubscription knobStateSubscription = new KnobStateSubscription(listener, executor, 3);
+
+    for (long sequence = 1; sequence <= 5; ++sequence)
+      offer(knobStateSubscription, sequence);
+    executor.runAll();
+    offer(knobStateSubscription, 6);
+    executor.runAll();
+
+    assertEquals(4, listener.sequences.size());
+    assertEquals(3L, (long) listener.sequences.get(0));
+    assertEquals(4L, (long) listener.sequences.get(1));
+    assertEquals(5L, (long) listener.sequences.get(2));
+    assertEquals(6L, (long) listener.sequences.get(3));
+    assertEquals(2, knobStateSubscription.getDroppedCount());
+  }
+
+  @Test
+  public void testCancelDiscardsQueuedStates() {
+    ManualExecutor executor = new ManualExecutor();
+    RecordingListener listener = new RecordingListener();
+    KnobStateSubscription knobStateSubscription = new KnobStateSubscription(listener, executor, 4);
+
+    offer(knobStateSubscription, 1);
+    knobStateSubscription.cancel();
+    offer(knobStateSubscription, 2);
+    executor.runAll();
+
+    assertEquals(0, listener.sequences.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidQueueCapacity() {
+    new KnobStateSubscription(new RecordingListener(), new ManualExecutor(), 0);
+  }
+}
@@ -0,0 +1,94 @@
+package com.widgex.ui.widget;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+  @Test
+  public void testBucketPrecision() {
+    for (long value = 0; value < 1 << 20; value += 7) {
+      long highestValue = LatencyHistogram.bucketHighestValue(LatencyHistogram.bucketIndex(value));
+      assertTrue(value + " above its bucket", value <= highestValue);
+      assertTrue(value + " imprecise", highestValue - value <= value / LatencyHistogram.SUB_BUCKET_COUNT);
+    }
+    assertEquals(LatencyHistogram.BUCKET_COUNT - 1,
+            LatencyHistogram.bucketIndex(LatencyHistogram.HIGHEST_TRACKABLE_VALUE));
+  }
+
+  @Test
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value <= 1000; ++value)
+      histogram.record(value * 1000);
+    histogram.record(-5);
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(1001, snapshot.getTotalCount());
+    assertEquals(1000000, snapshot.getMax());
+    assertEquals(0, snapshot.getValueAtPercentile(0));
+    assertEquals(1000000, snapshot.getValueAtPercentile(100));
+    long median = snapshot.getValueAtPercentile(50);
+    assertTrue("median = " + median, median >= 500000 && median <= 500000 * 33 / 32);
+    long p99 = snapshot.getValueAtPercentile(99);
+    assertTrue("p99 = " + p99, p99 >= 990000 && p99 <= 1000000);
+
+    histogram.reset();
+    assertEquals(0, histogram.snapshot().getTotalCount());
+    assertEquals(0, histogram.snapshot().getValueAtPercentile(99));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPercentile() {
+    new LatencyHistogram().snapshot().getValueAtPercentile(100.5);
+  }
+
+  @Test
+  public void testConcurrentRecording() throws Exception {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    final int NUMBER_OF_THREADS = 4;
+    final int NUMBER_OF_VALUES = 50000;
+    Thread[] threads = new Thread[NUMBER_OF_THREADS];
+    for (int i = 0; i < NUMBER_OF_THREADS; ++i) {
+      final int thread = i;
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int value = 1; value <= NUMBER_OF_VALUES; ++value)
+            histogram.record(value * (thread + 1));
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread thread : threads)
+      thread.join();
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(NUMBER_OF_THREADS * NUMBER_OF_VALUES, snapshot.getTotalCount());
+    assertEquals(NUMBER_OF_THREADS * NUMBER_OF_VALUES, snapshot.getMax());
+  }
+
+  @Test
+  public void testJoystickMetricsSnapshot() {
+    JoystickMetrics metrics = new JoystickMetrics();
+    metrics.recordProcessed(10, 12000000);
+    metrics.recordDrawn(12000000, 20000000);
+    metrics.recordDelivered(12000000, 13000000);
+    metrics.recordDropped(3);
+    metrics.recordDropped(-1);
+    metrics.recordNotifierOverrun();
+
+    JoystickMetrics.Snapshot snapshot = metrics.snapshot();
+    assertEquals(2000000, snapshot.eventToProcessed.getMax());
+    assertEquals(8000000, snapshot.processedToDrawn.getMax());
+    assertEquals(1000000, snapshot.processedToDelivered.getMax());
+    assertEquals(1, snapshot.callbackCount);
+    assertEquals(3, snapshot.droppedSampleCount);
+    assertEquals(1, snapshot.notifierOverrunCount);
+
+    metrics.reset();
+    assertEquals(0, metrics.snapshot().callbackCount);
+    assertEquals(0, metrics.snapshot().processedToDrawn.getTotalCount());
+  }
+}
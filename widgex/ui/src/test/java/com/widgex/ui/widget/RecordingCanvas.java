@@ -0,0 +1,142 @@
+package com.widgex.ui.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * a canvas that counts the draw operations issued to it instead of rendering them, so the cost
+ * of a frame can be checked on the JVM.
+ */
+public class RecordingCanvas extends Canvas {
+  protected int drawOpCount;
+  protected int drawBitmapCount;
+  // the last bitmap drawn at a position and where
+  protected Bitmap lastBitmap;
+  protected float lastBitmapLeft;
+  protected float lastBitmapTop;
+
+  public int getDrawOpCount() {
+    return drawOpCount;
+  }
+
+  public int getDrawBitmapCount() {
+    return drawBitmapCount;
+  }
+
+  public Bitmap getLastBitmap() {
+    return lastBitmap;
+  }
+
+  public float getLastBitmapLeft() {
+    return lastBitmapLeft;
+  }
+
+  public float getLastBitmapTop() {
+    return lastBitmapTop;
+  }
+
+  public void reset() {
+    drawOpCount = 0;
+    drawBitmapCount = 0;
+    lastBitmap = null;
+  }
+
+  protected void recordBitmap() {
+    ++drawOpCount;
+    ++drawBitmapCount;
+  }
+
+  @Override
+  public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+    recordBitmap();
+    lastBitmap = bitmap;
+    lastBitmapLeft = left;
+    lastBitmapTop = top;
+  }
+
+  @Override
+  public void drawBitmap(Bitmap bitmap, Rect src, Rect dst, Paint paint) {
+    recordBitmap();
+  }
+
+  @Override
+  public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+    recordBitmap();
+  }
+
+  @Override
+  public void drawBitmap(Bitmap bitmap, Matrix matrix, Paint paint) {
+    recordBitmap();
+  }
+
+  @Override
+  public void drawCircle(float cx, float cy, float radius, Paint paint) {
+    ++drawOpCount;
+  }
+
+  @Override
+  public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+    ++drawOpCount;
+  }
+
+  @Override
+  public void drawLines(float[] pts, int offset, int count, Paint paint) {
+    ++drawOpCount;
+  }
+
+  @Override
+  public void drawLines(float[] pts, Paint paint) {
+    ++drawOpCount;
+  }
+
+  @Override
+  public void drawOval(RectF oval, Paint paint) {
+    ++drawOpCount;
+  }
+
+  @Override
+  public void drawRect(RectF rect, Paint paint) {
+    ++drawOpCount;
+  }
+
+  @Override
+  public void drawRect(Rect r, Paint paint) {
+    ++drawOpCount;
+  }
+
+  @Override
+  public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+    ++drawOpCount;
+  }
+
+  @Override
+  public void drawRoundRect(RectF rect, float rx, float ry, Paint paint) {
+    ++drawOpCount;
+  }
+
+  @Override
+  public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter,
+                      Paint paint) {
+    ++drawOpCount;
+  }
+
+  @Override
+  public void drawPath(Path path, Paint paint) {
+    ++drawOpCount;
+  }
+
+  @Override
+  public void drawPaint(Paint paint) {
+    ++drawOpCount;
+  }
+
+  @Override
+  public void drawColor(int color) {
+    ++drawOpCount;
+  }
+}
@@ -0,0 +1,57 @@
+package com.widgex.ui.widget;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * a tracer that records the sections begun and the last value of each counter instead of
+ * writing them to a trace, so the tracing of a joystick can be checked on the JVM.
+ */
+public class RecordingTracer implements JoystickTracer {
+  protected final List<String> sections = new ArrayList<String>();
+  protected final Map<String, Long> counters = new HashMap<String, Long>();
+  protected int depth;
+
+  @Override
+  public void beginSection(String sectionName) {
+    sections.add(sectionName);
+    ++depth;
+  }
+
+  @Override
+  public void endSection() {
+    if (depth == 0)
+      throw new IllegalStateException("endSection without beginSection");
+    --depth;
+  }
+
+  @Override
+  public void setCounter(String counterName, long value) {
+    counters.put(counterName, value);
+  }
+
+  /**
+   * @return the names of the sections begun since the last reset, in order.
+   */
+  public List<String> getSections() {
+    return sections;
+  }
+
+  /**
+   * @return the number of sections begun and not ended yet.
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  public Long getCounter(String counterName) {
+    return counters.get(counterName);
+  }
+
+  public void reset() {
+    sections.clear();
+    counters.clear();
+  }
+}